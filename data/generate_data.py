@@ -28,6 +28,11 @@ def main():
     cmd = [java_path, '-cp', class_path, f'{project}.Main', str(x), str(y), num_iter]
 
     for i in range(num_trial):
+        if project == 'project1':
+            # project1 writes the .npy files itself, skipping the text round trip, plus optimal-move labels
+            subprocess.run(cmd + ['--npy', f'{i}-{prefix}'], check=True)
+            continue
+
         # run simulation
         p = subprocess.run(cmd, capture_output=True, text=True, check=True)
         states, actions = p.stdout, p.stderr
@@ -0,0 +1,173 @@
+package project1;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Anytime Repairing A* (Likhachev, Gordon and Thrun). The first pass runs A* with the heuristic inflated by a large
+ * weight, which quickly finds a path at most that many times longer than a shortest one. Later passes lower the weight
+ * and repair the previous pass's search tree instead of starting over, until the weight reaches 1 or the budget runs
+ * out. The first pass always completes, so a path is returned whenever one exists. The result's weight is the one of
+ * the last completed pass, and its suboptimality bound is how many times longer than a shortest path the returned
+ * path can at most be.
+ */
+public class ARAStarSearch implements SearchAlgo {
+
+    private CellHeuristic heuristic;
+    private double initialWeight;
+    private double weightStep;
+    private int maxExpansions;
+    private long maxNanos;
+
+    /**
+     * Constructs the search without a budget, so every search ends with an optimal path.
+     *
+     * @param heuristic The heuristic to use when searching
+     * @param initialWeight Weight of the first pass, at least 1
+     * @param weightStep How much the weight is lowered after each pass
+     */
+    public ARAStarSearch(CellHeuristic heuristic, double initialWeight, double weightStep) {
+        this(heuristic, initialWeight, weightStep, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param heuristic The heuristic to use when searching
+     * @param initialWeight Weight of the first pass, at least 1
+     * @param weightStep How much the weight is lowered after each pass
+     * @param maxExpansions No further passes are run after this many cells were expanded
+     * @param maxNanos No further passes are run after this many nanoseconds
+     */
+    public ARAStarSearch(CellHeuristic heuristic, double initialWeight, double weightStep, int maxExpansions, long maxNanos) {
+        if (initialWeight < 1 || weightStep <= 0) {
+            throw new IllegalArgumentException("weight must start at 1 or more and decrease by a positive step");
+        }
+        this.heuristic = heuristic;
+        this.initialWeight = initialWeight;
+        this.weightStep = weightStep;
+        this.maxExpansions = maxExpansions;
+        this.maxNanos = maxNanos;
+    }
+
+    @Override
+    public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        long startTime = System.nanoTime();
+        int goalX = end.f1;
+        int goalY = end.f2;
+        int startIndex = grid.index(start.f1, start.f2);
+        int endIndex = grid.index(goalX, goalY);
+
+        SearchContext context = SearchContext.forCurrentThread(grid.getNumCells());
+        context.begin();
+        IndexedHeap fringe = context.getFringe();
+        double weight = initialWeight;
+        double startHeuristic = heuristic.estimate(start.f1, start.f2, goalX, goalY);
+        context.discover(startIndex, 0, startHeuristic, -1);
+        fringe.add(startIndex, weight * startHeuristic, startHeuristic);
+
+        int pass = 1; // cells expanded in this pass have it as their mark
+        int[] inconsistent = new int[16]; // cells improved after being expanded in this pass
+        int numInconsistent = 0;
+        int numberOfCellsProcessed = 0;
+        GridPath path = null;
+        double finalWeight = weight;
+        double bound = weight;
+        while (true) {
+            // expand until no cell in the fringe could improve the path to the goal under the current weight
+            boolean outOfBudget = false;
+            while (!fringe.isEmpty()
+                    && (!context.isDiscovered(endIndex) || context.getCost(endIndex) > fringe.getPrimaryKey(fringe.peek()))) {
+                if (path != null && isOverBudget(numberOfCellsProcessed, startTime)) {
+                    outOfBudget = true;
+                    break;
+                }
+                int currentCell = fringe.poll();
+                context.setMark(currentCell, pass);
+                numberOfCellsProcessed++;
+                double previousCost = context.getCost(currentCell);
+
+                // process each child: right, left, up, down
+                for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                    int childIndex = grid.neighbour(currentCell, direction);
+                    if (childIndex == -1 || isBlocked.test(childIndex)) continue;
+                    double childCost = previousCost + 1;
+                    if (!context.isDiscovered(childIndex)) {
+                        double childHeuristic = heuristic.estimate(grid.getX(childIndex), grid.getY(childIndex), goalX, goalY);
+                        context.discover(childIndex, childCost, childHeuristic, currentCell);
+                        fringe.add(childIndex, childCost + weight * childHeuristic, childHeuristic);
+                    } else if (childCost < context.getCost(childIndex)) {
+                        context.setCost(childIndex, childCost);
+                        context.setPrev(childIndex, currentCell);
+                        if (context.getMark(childIndex) == pass) { // already expanded, wait for the next pass
+                            if (numInconsistent == inconsistent.length) {
+                                inconsistent = Arrays.copyOf(inconsistent, 2 * numInconsistent);
+                            }
+                            inconsistent[numInconsistent++] = childIndex;
+                        } else {
+                            double childHeuristic = context.getHeuristicCost(childIndex);
+                            fringe.update(childIndex, childCost + weight * childHeuristic, childHeuristic);
+                        }
+                    }
+                }
+            }
+            if (outOfBudget) break; // keep the path of the last completed pass
+            if (!context.isDiscovered(endIndex)) {
+                return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null); // path not found
+            }
+
+            // the pass is complete, take its path
+            path = GridPath.traceBack(grid, endIndex, context::getPrev);
+            finalWeight = weight;
+            bound = Math.min(weight, path.size() / lowestCostEstimate(context, fringe, inconsistent, numInconsistent, path.size()));
+
+            if (weight <= 1 || isOverBudget(numberOfCellsProcessed, startTime)) break;
+
+            // next pass: lower the weight, reopen the inconsistent cells and rekey the fringe
+            weight = Math.max(1, weight - weightStep);
+            pass++;
+            for (int i = 0; i < numInconsistent; i++) {
+                int cell = inconsistent[i];
+                fringe.update(cell, 0, 0); // keys are set below
+            }
+            numInconsistent = 0;
+            int[] open = new int[fringe.size()];
+            for (int i = 0; i < open.length; i++) {
+                open[i] = fringe.get(i);
+            }
+            for (int cell : open) {
+                double h = context.getHeuristicCost(cell);
+                fringe.update(cell, context.getCost(cell) + weight * h, h);
+            }
+        }
+
+        GridWorldInfo result = new GridWorldInfo(path.size(), numberOfCellsProcessed, path);
+        result.setWeight(finalWeight);
+        result.setSuboptimalityBound(bound);
+        return result;
+    }
+
+    private boolean isOverBudget(int numberOfCellsProcessed, long startTime) {
+        return numberOfCellsProcessed >= maxExpansions || System.nanoTime() - startTime >= maxNanos;
+    }
+
+    // lower bound on the length of a shortest path: the smallest g + h of any cell still waiting to be expanded
+    private static double lowestCostEstimate(SearchContext context, IndexedHeap fringe, int[] inconsistent, int numInconsistent, double pathLength) {
+        double lowest = pathLength; // nothing left to expand means the path is a shortest one
+        for (int i = 0; i < fringe.size(); i++) {
+            int cell = fringe.get(i);
+            lowest = Math.min(lowest, context.getCost(cell) + context.getHeuristicCost(cell));
+        }
+        for (int i = 0; i < numInconsistent; i++) {
+            int cell = inconsistent[i];
+            lowest = Math.min(lowest, context.getCost(cell) + context.getHeuristicCost(cell));
+        }
+        return lowest;
+    }
+}
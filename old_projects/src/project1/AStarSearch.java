@@ -2,20 +2,32 @@ package project1;
 
 import java.util.*;
 import java.util.function.BiFunction;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 
 public class AStarSearch implements SearchAlgo{
 
-    private BiFunction<Tuple<Integer, Integer>, Tuple<Integer, Integer>, Double> heuristic;
+    private CellHeuristic heuristic;
 
 
     public AStarSearch(BiFunction<Tuple<Integer, Integer>, Tuple<Integer, Integer>, Double> heuristic) {
+        this((x, y, goalX, goalY) -> heuristic.apply(new Tuple<>(x, y), new Tuple<>(goalX, goalY)));
+    }
+
+    /**
+     * Constructs the search with a primitive heuristic (e.g. {@code Heuristics::manhattan}). Together with the
+     * per-thread {@link SearchContext}, this keeps repeated searches free of per-expansion allocations.
+     *
+     * @param heuristic The heuristic to use when searching
+     */
+    public AStarSearch(CellHeuristic heuristic) {
         this.heuristic = heuristic;
     }
 
     /**
      * This runs the A* Search algorithm. Predicate is used to pass in a boolean evaluation function to check what spaces we have been to/are blocked or spaces that are free.
      * Returns a GridWorldInfo Object {@link GridWorldInfo}.
+     * All search state is kept in the calling thread's {@link SearchContext}, so the cells of the grid are not modified.
      * @param start Start Location
      * @param end End Location
      * @param grid Grid to Search
@@ -25,60 +37,54 @@ public class AStarSearch implements SearchAlgo{
 
     @Override
     public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
-        GridCell startCell = grid.getCell(start);
-        GridCell endCell = grid.getCell(end);
-        if (startCell == endCell || startCell == null || endCell == null) return null; // Checks invalid cells
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        int goalX = end.f1;
+        int goalY = end.f2;
+        int startIndex = grid.index(start.f1, start.f2);
+        int endIndex = grid.index(goalX, goalY);
 
         // create fringe and process start cell
-        PriorityQueue<GridCell> fringe = new PriorityQueue<>(new GridCellComparator()); // Priority Queue for reference
-        startCell.setCost(0);
-        startCell.setHeuristicCost(heuristic.apply(start, end));
-        startCell.setPrev(null);
-        fringe.add(startCell);
+        SearchContext context = SearchContext.forCurrentThread(grid.getNumCells());
+        context.begin();
+        IndexedHeap fringe = context.getFringe();
+        double startHeuristic = heuristic.estimate(start.f1, start.f2, goalX, goalY);
+        context.discover(startIndex, 0, startHeuristic, -1);
+        fringe.add(startIndex, startHeuristic, startHeuristic); // ordered by f-cost, then prefer higher g-cost over higher h-cost
 
         // begin processing cells
-        GridCell currentCell;
+        int currentCell;
         double previousCost;
-        HashSet<GridCell> discoveredCells = new HashSet<>();
-        discoveredCells.add(startCell);
         int numberOfCellsProcessed = 0;
         while (!fringe.isEmpty()) {
             numberOfCellsProcessed++; //Cell Processed Counter
             currentCell = fringe.poll();// Get First in Queue
-            previousCost = currentCell.getCost(); //Previous cost of the cell
-            if (currentCell.equals(endCell)) { //check if end then start return obj creation
+            previousCost = context.getCost(currentCell); //Previous cost of the cell
+            if (currentCell == endIndex) { //check if end then start return obj creation
                 // goal found, reconstruct path
-                LinkedList<Tuple<Integer, Integer>> path = new LinkedList<>();
-                while(currentCell.getPrev() != null) { // while we have not reached the start cell...
-                    path.push(currentCell.getLocation());
-                    currentCell = currentCell.getPrev();
-                }
+                GridPath path = GridPath.traceBack(grid, currentCell, context::getPrev);
                 return new GridWorldInfo(previousCost, numberOfCellsProcessed, path);
             }
 
-            // else, generate the children of currentCell
-            ArrayList<Tuple<Integer, Integer>> directions = new ArrayList<>(4);
-            directions.add(new Tuple<>(currentCell.getX() + 1, currentCell.getY())); // right
-            directions.add(new Tuple<>(currentCell.getX() - 1, currentCell.getY())); // left
-            directions.add(new Tuple<>(currentCell.getX(), currentCell.getY() - 1)); // up
-            directions.add(new Tuple<>(currentCell.getX(), currentCell.getY() + 1)); // down
-
-            // process each child
-            for(Tuple<Integer, Integer> direction : directions) {
-                GridCell child = grid.getCell(direction);
-                if(child == null || isBlocked.test(child)) continue; // check that cell is valid
-                if(!discoveredCells.contains(child)) { // first time processing this cell -> initialize and insert into fringe
-                    child.setHeuristicCost(heuristic.apply(child.getLocation(), end));
-                    child.setCost(previousCost + 1);
-                    child.setPrev(currentCell);
-                    fringe.add(child);
-                    discoveredCells.add(child);
-                } else if(previousCost + 1 < child.getCost()) { // already in queue -> check if priority needs to be updated
-                    fringe.remove(child);
-                    // if(check == false) System.out.println("heuristic consistency violated");
-                    child.setCost(previousCost + 1);
-                    child.setPrev(currentCell);
-                    fringe.add(child);
+            // else, process each child: right, left, up, down
+            for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                int childIndex = grid.neighbour(currentCell, direction);
+                if(childIndex == -1 || isBlocked.test(childIndex)) continue; // check that cell is valid
+                if(!context.isDiscovered(childIndex)) { // first time processing this cell -> initialize and insert into fringe
+                    double childHeuristic = heuristic.estimate(grid.getX(childIndex), grid.getY(childIndex), goalX, goalY);
+                    context.discover(childIndex, previousCost + 1, childHeuristic, currentCell);
+                    fringe.add(childIndex, previousCost + 1 + childHeuristic, childHeuristic);
+                } else if(previousCost + 1 < context.getCost(childIndex)) { // already in queue -> decrease its key
+                    double childHeuristic = context.getHeuristicCost(childIndex);
+                    context.setCost(childIndex, previousCost + 1);
+                    context.setPrev(childIndex, currentCell);
+                    fringe.remove(childIndex); // remove and re-add like PriorityQueue did, so ties come out in the same order
+                    fringe.add(childIndex, previousCost + 1 + childHeuristic, childHeuristic);
                 }
             }
         }
@@ -86,18 +92,4 @@ public class AStarSearch implements SearchAlgo{
         // path not found
         return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null);
     }
-
-    class GridCellComparator implements Comparator<GridCell> { //Custom Comparator for Priority Queue
-
-        @Override
-        public int compare(GridCell o1, GridCell o2) {
-            Double cost1 = o1.getCost() + o1.getHeuristicCost();
-            Double cost2 = o2.getCost() + o2.getHeuristicCost();
-            if(Double.compare(cost1, cost2) == 0) { // prefer higher g-cost over higher h-cost
-                return Double.compare(o1.getHeuristicCost(), o2.getHeuristicCost());
-            } else {
-                return Double.compare(cost1, cost2);
-            }
-        }
-    }
 }
@@ -0,0 +1,135 @@
+package project1;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Adaptive A* (Koenig and Likhachev). Runs plain A*, but after every search that reaches the goal it raises the
+ * heuristic of each expanded cell s to g(goal) - g(s), its distance to the goal through the cells known so far. The
+ * learned values are kept for the rest of the episode, so later searches towards the same goal are better informed
+ * and expand fewer cells. Newly discovered obstacles only make distances longer, so the learned heuristic stays
+ * admissible and consistent and returned paths stay shortest paths.
+ */
+public class AdaptiveAStarSearch implements IncrementalSearchAlgo {
+
+    private CellHeuristic heuristic;
+    private Grid grid; // grid the learned heuristic belongs to
+    private int goal;
+    private double[] learned;
+    private int[] stamp; // only cells stamped with the current generation have a learned heuristic
+    private int generation;
+    private int[] expanded; // cells expanded by the current search, in order
+
+    public AdaptiveAStarSearch(CellHeuristic heuristic) {
+        this.heuristic = heuristic;
+        this.expanded = new int[16];
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        this.grid = null;
+        this.goal = -1;
+    }
+
+    /**
+     * Nothing to do, the learned heuristic stays consistent when cells become blocked.
+     */
+    @Override
+    public void cellBlocked(int index) {
+    }
+
+    /**
+     * Runs A* from start to end with the heuristic learned so far, and learns from the result. The learned heuristic is
+     * kept if the grid and goal are the same as last time.
+     *
+     * @param start Start Location
+     * @param end End Location
+     * @param grid Grid to Search
+     * @param isBlocked Function to check whether cells are blocked
+     * @return GridWorldInfo with the path found and the number of cells expanded by this call
+     */
+    @Override
+    public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        int startIndex = grid.index(start.f1, start.f2);
+        int endIndex = grid.index(end.f1, end.f2);
+        if (grid != this.grid || endIndex != goal) {
+            startEpisode(grid, endIndex);
+        }
+
+        SearchContext context = SearchContext.forCurrentThread(grid.getNumCells());
+        context.begin();
+        IndexedHeap fringe = context.getFringe();
+        double startHeuristic = estimate(startIndex);
+        context.discover(startIndex, 0, startHeuristic, -1);
+        fringe.add(startIndex, startHeuristic, startHeuristic); // ordered by f-cost, then prefer higher g-cost over higher h-cost
+
+        int numberOfCellsProcessed = 0;
+        while (!fringe.isEmpty()) {
+            int currentCell = fringe.poll();
+            if (numberOfCellsProcessed == expanded.length) {
+                expanded = Arrays.copyOf(expanded, 2 * numberOfCellsProcessed);
+            }
+            expanded[numberOfCellsProcessed++] = currentCell;
+            double previousCost = context.getCost(currentCell);
+            if (currentCell == endIndex) {
+                // every expanded cell s is at least g(goal) - g(s) away from the goal
+                for (int i = 0; i < numberOfCellsProcessed; i++) {
+                    int cell = expanded[i];
+                    learned[cell] = previousCost - context.getCost(cell);
+                    stamp[cell] = generation;
+                }
+
+                GridPath path = GridPath.traceBack(grid, currentCell, context::getPrev);
+                return new GridWorldInfo(previousCost, numberOfCellsProcessed, path);
+            }
+
+            // process each child: right, left, up, down
+            for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                int childIndex = grid.neighbour(currentCell, direction);
+                if (childIndex == -1 || isBlocked.test(childIndex)) continue;
+                if (!context.isDiscovered(childIndex)) {
+                    double childHeuristic = estimate(childIndex);
+                    context.discover(childIndex, previousCost + 1, childHeuristic, currentCell);
+                    fringe.add(childIndex, previousCost + 1 + childHeuristic, childHeuristic);
+                } else if (previousCost + 1 < context.getCost(childIndex)) {
+                    double childHeuristic = context.getHeuristicCost(childIndex);
+                    context.setCost(childIndex, previousCost + 1);
+                    context.setPrev(childIndex, currentCell);
+                    fringe.update(childIndex, previousCost + 1 + childHeuristic, childHeuristic);
+                }
+            }
+        }
+
+        // path not found; nothing learned, since the goal distance is unknown
+        return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null);
+    }
+
+    private void startEpisode(Grid grid, int goal) {
+        int numCells = grid.getNumCells();
+        if (learned == null || learned.length < numCells) {
+            learned = new double[numCells];
+            stamp = new int[numCells];
+            generation = 0;
+        }
+        if (++generation == 0) { // wrapped around, old stamps could look current
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        this.grid = grid;
+        this.goal = goal;
+    }
+
+    private double estimate(int cell) {
+        if (stamp[cell] == generation) return learned[cell];
+        return heuristic.estimate(grid.getX(cell), grid.getY(cell), grid.getX(goal), grid.getY(goal));
+    }
+}
@@ -3,6 +3,14 @@ package project1;
 import java.util.*;
 import java.util.function.Predicate;
 
+/**
+ * Bidirectional breadth-first search over bitsets. Cells are numbered row by row (see {@link Grid#index(int, int)})
+ * and packed 64 to a long; the frontiers and visited sets of both searches are bitsets, and a level is expanded a
+ * whole word at a time by shifting it one cell left/right and one row up/down. Only words that actually hold frontier
+ * cells are touched. All state is local to a call, so any number of searches can run on the same grid at once.
+ * Callers that check many grids of one size, like {@link MazeSampler}, can keep the state in a {@link Workspace}
+ * instead, so that nothing is allocated per check.
+ */
 public class BFSObject {
 
     /**
@@ -15,55 +23,366 @@ public class BFSObject {
      * @return GridWorldInfo containing the info for grid world
      */
     public static GridWorldInfo BFS(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
-        GridCell startCell = grid.getCell(start);
-        GridCell endCell = grid.getCell(end);
-        if (startCell == endCell || startCell == null || endCell == null) return null;
-
-        // create fringe and process start cell
-        Queue<GridCell> fringe = new LinkedList<>();
-        startCell.setCost(0);
-        startCell.setPrev(null);
-        fringe.add(startCell);
-
-        // begin processing cells
-        GridCell currentCell;
-        double previousCost;
-        HashSet<GridCell> discoveredCells = new HashSet<>();
-        discoveredCells.add(startCell);
-        int numberOfCellsProcessed = 0;
-        while (!fringe.isEmpty()) {
-            numberOfCellsProcessed++;
-            currentCell = fringe.poll();
-            previousCost = currentCell.getCost();
-            if (currentCell.equals(endCell)) {
-                // goal found, reconstruct path
-                LinkedList<Tuple<Integer, Integer>> path = new LinkedList<>();
-                while(currentCell.getPrev() != null) { // while we have not reached the start cell...
-                    path.push(currentCell.getLocation());
-                    currentCell = currentCell.getPrev();
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null;
+
+        long[] free = new long[grid.getNumWords()];
+        for (int index = 0; index < grid.getNumCells(); index++) {
+            if (!isBlocked.test(grid.getCell(index))) free[index >>> 6] |= 1L << index;
+        }
+        return BFS(grid.index(start.f1, start.f2), grid.index(end.f1, end.f2), grid.getXSize(), grid.getYSize(), free);
+    }
+
+    /**
+     * Runs BFS on the complete grid (using the actual blocked state of every cell) without creating any
+     * {@link GridCell} objects.
+     *
+     * @param start Start Position
+     * @param end End Position
+     * @param grid Grid to Search
+     * @return GridWorldInfo containing the info for grid world
+     */
+    public static GridWorldInfo BFS(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null;
+        return BFS(grid.index(start.f1, start.f2), grid.index(end.f1, end.f2), grid.getXSize(), grid.getYSize(), freeCells(grid));
+    }
+
+    /**
+     * Checks whether end can be reached from start in the complete grid, without reconstructing a path.
+     *
+     * @param start Start Position
+     * @param end End Position
+     * @param grid Grid to Search
+     * @return Whether a path exists
+     */
+    public static boolean isReachable(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid) {
+        return isReachable(grid.index(start.f1, start.f2), grid.index(end.f1, end.f2), grid.getXSize(), grid.getYSize(), freeCells(grid));
+    }
+
+    /**
+     * Checks whether end can be reached from start, given a bitset of free cells.
+     *
+     * @param start Index of the start cell
+     * @param end Index of the end cell
+     * @param xSize Width of the grid
+     * @param ySize Height of the grid
+     * @param free Bit i is set if cell i is free
+     * @return Whether a path exists
+     */
+    public static boolean isReachable(int start, int end, int xSize, int ySize, long[] free) {
+        return new Workspace(xSize, ySize).isReachable(start, end, free);
+    }
+
+    /**
+     * Runs BFS given a bitset of free cells. The start cell is assumed to be free.
+     *
+     * @param start Index of the start cell
+     * @param end Index of the end cell
+     * @param xSize Width of the grid
+     * @param ySize Height of the grid
+     * @param free Bit i is set if cell i is free
+     * @return GridWorldInfo containing the info for grid world
+     */
+    public static GridWorldInfo BFS(int start, int end, int xSize, int ySize, long[] free) {
+        long[][] masks = columnMasks(xSize, ySize, free.length);
+        Search search = new Search(start, end, xSize, free, masks[0], masks[1],
+                new Side(free.length, true), new Side(free.length, true));
+        int meeting = search.run();
+        if (meeting == -1) {
+            return new GridWorldInfo(Double.NaN, search.numberOfCellsProcessed, null); // path not found
+        }
+        return new GridWorldInfo(search.forward.depth + search.backward.depth, search.numberOfCellsProcessed, search.path(meeting));
+    }
+
+    private static long[] freeCells(Grid grid) {
+        long[] free = new long[grid.getNumWords()];
+        for (int w = 0; w < free.length; w++) {
+            free[w] = ~grid.getBlockedWord(w);
+        }
+        int tail = grid.getNumCells() & 63;
+        if (tail != 0) free[free.length - 1] &= (1L << tail) - 1; // cells past the end are never free
+        return free;
+    }
+
+    /**
+     * Masks clearing the first and the last column of every row, which shifted bits must not wrap into.
+     *
+     * @return The notFirstColumn and notLastColumn masks
+     */
+    private static long[][] columnMasks(int xSize, int ySize, int numWords) {
+        long[] notFirstColumn = new long[numWords];
+        long[] notLastColumn = new long[numWords];
+        Arrays.fill(notFirstColumn, -1L);
+        Arrays.fill(notLastColumn, -1L);
+        for (int y = 0; y < ySize; y++) {
+            int first = y * xSize;
+            int last = first + xSize - 1;
+            notFirstColumn[first >>> 6] &= ~(1L << first);
+            notLastColumn[last >>> 6] &= ~(1L << last);
+        }
+        return new long[][]{notFirstColumn, notLastColumn};
+    }
+
+    /**
+     * Reusable state for reachability checks on grids of one size: the column masks are built once, and the frontier
+     * and visited bitsets of both sides are cleared instead of allocated for every check. A workspace must not be used
+     * by two threads at once.
+     */
+    public static class Workspace {
+        private final int xSize;
+        private final int numWords;
+        private final long[] notFirstColumn;
+        private final long[] notLastColumn;
+        private final Side forward;
+        private final Side backward;
+
+        /**
+         * @param xSize Width of the grids
+         * @param ySize Height of the grids
+         */
+        public Workspace(int xSize, int ySize) {
+            this.xSize = xSize;
+            this.numWords = Grid.wordsFor(xSize * ySize);
+            long[][] masks = columnMasks(xSize, ySize, numWords);
+            this.notFirstColumn = masks[0];
+            this.notLastColumn = masks[1];
+            this.forward = new Side(numWords, false);
+            this.backward = new Side(numWords, false);
+        }
+
+        /**
+         * Checks whether end can be reached from start, given a bitset of free cells of a grid of this size.
+         *
+         * @param start Index of the start cell
+         * @param end Index of the end cell
+         * @param free Bit i is set if cell i is free
+         * @return Whether a path exists
+         */
+        public boolean isReachable(int start, int end, long[] free) {
+            if (free.length != numWords) {
+                throw new IllegalArgumentException("expected " + numWords + " words, got " + free.length);
+            }
+            if (start == end) return true;
+            return new Search(start, end, xSize, free, notFirstColumn, notLastColumn, forward, backward).run() != -1;
+        }
+    }
+
+    /**
+     * State of one bidirectional search.
+     */
+    private static class Search {
+        final int start;
+        final int end;
+        final int xSize;
+        final int rowWords; // whole words in one row
+        final int rowBits; // remaining bits in one row
+        final long[] free;
+        final long[] notFirstColumn;
+        final long[] notLastColumn;
+        final Side forward;
+        final Side backward;
+        int numberOfCellsProcessed;
+
+        Search(int start, int end, int xSize, long[] free, long[] notFirstColumn, long[] notLastColumn, Side forward, Side backward) {
+            this.start = start;
+            this.end = end;
+            this.xSize = xSize;
+            this.rowWords = xSize >>> 6;
+            this.rowBits = xSize & 63;
+            this.free = free;
+            this.notFirstColumn = notFirstColumn;
+            this.notLastColumn = notLastColumn;
+            this.forward = forward;
+            this.backward = backward;
+            forward.begin(start);
+            backward.begin(end);
+            this.numberOfCellsProcessed = 2;
+        }
+
+        /**
+         * Expands the smaller frontier one level at a time until the two searches meet.
+         *
+         * @return Index of a cell where the searches met, or -1 if there is no path
+         */
+        int run() {
+            if ((free[end >>> 6] & (1L << end)) == 0) return -1; // end is blocked
+            while (forward.size > 0 && backward.size > 0) {
+                Side side = forward.size <= backward.size ? forward : backward;
+                Side other = side == forward ? backward : forward;
+                expand(side);
+                for (int i = 0; i < side.size; i++) {
+                    int w = side.words[i];
+                    long met = side.frontier[w] & other.visited[w];
+                    if (met != 0) {
+                        return (w << 6) + Long.numberOfTrailingZeros(met);
+                    }
+                }
+            }
+            return -1;
+        }
+
+        private void expand(Side side) {
+            long[] frontier = side.frontier;
+            long[] next = side.next;
+            int[] words = side.words;
+            side.nextSize = 0;
+            for (int i = 0; i < side.size; i++) {
+                int w = words[i];
+                long bits = frontier[w];
+                frontier[w] = 0;
+                // right and left neighbours: shift by one cell, dropping bits that wrapped to another row
+                add(side, w, bits << 1, notFirstColumn);
+                add(side, w + 1, bits >>> 63, notFirstColumn);
+                add(side, w, bits >>> 1, notLastColumn);
+                add(side, w - 1, bits << 63, notLastColumn);
+                // down and up neighbours: shift by one row
+                if (rowBits == 0) {
+                    add(side, w + rowWords, bits, null);
+                    add(side, w - rowWords, bits, null);
+                } else {
+                    add(side, w + rowWords, bits << rowBits, null);
+                    add(side, w + rowWords + 1, bits >>> (64 - rowBits), null);
+                    add(side, w - rowWords, bits >>> rowBits, null);
+                    add(side, w - rowWords - 1, bits << (64 - rowBits), null);
                 }
-                return new GridWorldInfo(previousCost, numberOfCellsProcessed, path);
             }
 
-            // else, generate the children of currentCell
-            ArrayList<Tuple<Integer, Integer>> directions = new ArrayList<>(4);
-            directions.add(new Tuple<>(currentCell.getX() + 1, currentCell.getY())); // right
-            directions.add(new Tuple<>(currentCell.getX() - 1, currentCell.getY())); // left
-            directions.add(new Tuple<>(currentCell.getX(), currentCell.getY() - 1)); // up
-            directions.add(new Tuple<>(currentCell.getX(), currentCell.getY() + 1)); // down
-
-            // process each child
-            for(Tuple<Integer, Integer> direction : directions) {
-                GridCell child = grid.getCell(direction);
-                if(child == null || isBlocked.test(child) || discoveredCells.contains(child)) continue; // check that cell is valid and undiscovered
-                child.setCost(previousCost + 1);
-                child.setPrev(currentCell);
-                fringe.add(child);
-                discoveredCells.add(child);
+            // the new frontier becomes visited
+            side.swap();
+            side.depth++;
+            for (int i = 0; i < side.size; i++) {
+                int w = side.words[i];
+                side.visited[w] |= side.frontier[w];
+                numberOfCellsProcessed += Long.bitCount(side.frontier[w]);
+            }
+            side.recordLayer();
+        }
+
+        private void add(Side side, int w, long bits, long[] mask) {
+            if (bits == 0 || w < 0 || w >= free.length) return;
+            bits &= free[w] & ~side.visited[w];
+            if (mask != null) bits &= mask[w];
+            if (bits == 0) return;
+            if (side.next[w] == 0) side.words[side.size + side.nextSize++] = w;
+            side.next[w] |= bits;
+        }
+
+        /**
+         * Builds the path (excluding the start cell) through the cell where the searches met.
+         */
+        List<Tuple<Integer, Integer>> path(int meeting) {
+            LinkedList<Tuple<Integer, Integer>> path = new LinkedList<>();
+            int cell = meeting;
+            for (int depth = forward.depth; depth > 0; depth--) { // walk back towards start
+                path.push(new Tuple<>(cell % xSize, cell / xSize));
+                cell = forward.previous(this, cell, depth - 1);
+            }
+            cell = meeting;
+            for (int depth = backward.depth; depth > 0; depth--) { // walk on towards end
+                cell = backward.previous(this, cell, depth - 1);
+                path.add(new Tuple<>(cell % xSize, cell / xSize));
             }
+            return path;
         }
 
-        // path not found
-        return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null);
+        private int neighbour(int cell, int direction) {
+            switch (direction) {
+                case Grid.RIGHT:
+                    return (cell % xSize) + 1 < xSize ? cell + 1 : -1;
+                case Grid.LEFT:
+                    return cell % xSize > 0 ? cell - 1 : -1;
+                case Grid.UP:
+                    return cell - xSize;
+                default:
+                    return cell + xSize;
+            }
+        }
+    }
+
+    /**
+     * One direction of the search. The current frontier's words are listed in words[0, size), the words of the level
+     * being built follow them in words[size, size + nextSize). The arrays are reused by every search started with
+     * {@link #begin(int)}.
+     */
+    private static class Side {
+        long[] frontier;
+        long[] next;
+        final long[] visited;
+        int[] words;
+        int size;
+        int nextSize;
+        int depth;
+        final long[] depthLow; // depth % 3 of every visited cell as two bits, if paths are needed
+        final long[] depthHigh;
+
+        Side(int numWords, boolean recordLayers) {
+            this.frontier = new long[numWords];
+            this.next = new long[numWords];
+            this.visited = new long[numWords];
+            this.words = new int[2 * numWords + 2]; // room for the current and the next level
+            this.depthLow = recordLayers ? new long[numWords] : null;
+            this.depthHigh = recordLayers ? new long[numWords] : null;
+        }
+
+        /**
+         * Forgets the previous search and starts a new one at origin.
+         */
+        void begin(int origin) {
+            Arrays.fill(frontier, 0L);
+            Arrays.fill(next, 0L);
+            Arrays.fill(visited, 0L);
+            if (depthLow != null) {
+                Arrays.fill(depthLow, 0L);
+                Arrays.fill(depthHigh, 0L);
+            }
+            frontier[origin >>> 6] = 1L << origin;
+            visited[origin >>> 6] = 1L << origin;
+            words[0] = origin >>> 6;
+            this.size = 1;
+            this.nextSize = 0;
+            this.depth = 0;
+            recordLayer();
+        }
+
+        void swap() {
+            long[] temp = frontier;
+            frontier = next;
+            next = temp;
+            System.arraycopy(words, size, words, 0, nextSize);
+            size = nextSize;
+            nextSize = 0;
+        }
+
+        /**
+         * Remembers the depth of the current frontier modulo 3. Neighbouring cells are at most one level apart, so that
+         * is enough to tell the previous level from the current and the next one, and memory stays at two bits per
+         * cell however deep the search goes.
+         */
+        void recordLayer() {
+            if (depthLow == null || depth % 3 == 0) return;
+            long[] bits = depth % 3 == 1 ? depthLow : depthHigh;
+            for (int i = 0; i < size; i++) {
+                int w = words[i];
+                bits[w] |= frontier[w];
+            }
+        }
+
+        boolean inLayer(int cell, int depth) {
+            int w = cell >>> 6;
+            long bit = 1L << cell;
+            if ((visited[w] & bit) == 0) return false;
+            int mod = ((depthHigh[w] & bit) != 0 ? 2 : 0) + ((depthLow[w] & bit) != 0 ? 1 : 0);
+            return mod == depth % 3;
+        }
+
+        /**
+         * Finds a neighbour of cell that this side reached at the given depth.
+         */
+        int previous(Search search, int cell, int depth) {
+            for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                int nbr = search.neighbour(cell, direction);
+                if (nbr >= 0 && (nbr >>> 6) < visited.length && inLayer(nbr, depth)) return nbr;
+            }
+            throw new IllegalStateException("no neighbour of " + cell + " at depth " + depth);
+        }
     }
 }
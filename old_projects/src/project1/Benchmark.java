@@ -0,0 +1,175 @@
+package project1;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Micro benchmarks for the searches, complete robot episodes and maze sampling, in the spirit of JMH: warmup
+ * iterations followed by timed measurement iterations, reporting ops/s next to the allocation and GC activity per
+ * operation. Mazes come from fixed seeds, so numbers are comparable between runs and between versions of the code.
+ *
+ * usage: java project1.Benchmark [name filter] [seconds per iteration]
+ */
+public class Benchmark {
+    private static final long SEED = 520;
+    private static final int MAZES_PER_CASE = 8; // operations cycle through these
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+
+    private static final int[] SEARCH_SIZES = {101, 501, 2001};
+    private static final int[] ROBOT_SIZES = {101, 501};
+    private static final int[] DENSITIES = {0, 10, 20, 30, 33};
+    private static final int HPA_CLUSTER_SIZE = 20;
+
+    private static volatile Object blackhole; // keeps results alive so the work can't be optimized away
+
+    @FunctionalInterface
+    private interface Operation {
+        Object run(int i);
+    }
+
+    // one benchmark; the setup (maze generation) only runs if the case is selected
+    private static class Case {
+        String name;
+        Supplier<Operation> setup;
+
+        Case(String name, Supplier<Operation> setup) {
+            this.name = name;
+            this.setup = setup;
+        }
+    }
+
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+
+        List<Case> cases = new ArrayList<>();
+        for (int size : SEARCH_SIZES) {
+            for (int density : DENSITIES) {
+                String params = "(" + size + "x" + size + ", " + density + "%)";
+                cases.add(new Case("search.astar " + params, () -> {
+                    Grid[] mazes = mazes(size, density);
+                    SearchAlgo algo = new AStarSearch(Heuristics::manhattan);
+                    return i -> algo.search(new Tuple<>(0, 0), new Tuple<>(size - 1, size - 1), mazes[i % mazes.length]);
+                }));
+                cases.add(new Case("search.fringe " + params, () -> {
+                    Grid[] mazes = mazes(size, density);
+                    SearchAlgo algo = new FringeSearch(Heuristics::manhattan);
+                    return i -> algo.search(new Tuple<>(0, 0), new Tuple<>(size - 1, size - 1), mazes[i % mazes.length]);
+                }));
+                cases.add(new Case("search.hpa " + params, () -> { // queries only, the abstractions are built in the setup
+                    Grid[] mazes = mazes(size, density);
+                    HPAStarSearch[] algos = new HPAStarSearch[mazes.length];
+                    for (int m = 0; m < mazes.length; m++) {
+                        algos[m] = new HPAStarSearch(mazes[m], HPA_CLUSTER_SIZE);
+                    }
+                    return i -> algos[i % algos.length].search(new Tuple<>(0, 0), new Tuple<>(size - 1, size - 1), mazes[i % mazes.length]);
+                }));
+                cases.add(new Case("search.bfs " + params, () -> {
+                    Grid[] mazes = mazes(size, density);
+                    return i -> BFSObject.BFS(new Tuple<>(0, 0), new Tuple<>(size - 1, size - 1), mazes[i % mazes.length]);
+                }));
+            }
+        }
+        for (int size : ROBOT_SIZES) {
+            for (int density : DENSITIES) {
+                for (boolean canSeeSideways : new boolean[]{true, false}) {
+                    String name = "robot.run " + (canSeeSideways ? "sideways " : "blind ") + "(" + size + "x" + size + ", " + density + "%)";
+                    cases.add(new Case(name, () -> {
+                        Grid[] mazes = mazes(size, density);
+                        SearchAlgo algo = new AStarSearch(Heuristics::manhattan);
+                        return i -> new Robot(new Tuple<>(0, 0), new Tuple<>(size - 1, size - 1), canSeeSideways,
+                                mazes[i % mazes.length], algo, false).run();
+                    }));
+                }
+            }
+        }
+        for (int size : SEARCH_SIZES) {
+            for (int density : DENSITIES) {
+                cases.add(new Case("maze.sample (" + size + "x" + size + ", " + density + "%)", () -> {
+                    MazeSampler sampler = new MazeSampler(size, size, density, new SplittableRandom(SEED));
+                    return i -> sampler.next();
+                }));
+            }
+        }
+
+        System.out.printf("%-44s %14s %12s %14s %14s %10s%n", "Benchmark", "ops/s", "error", "alloc B/op", "alloc MB/s", "gc ms/op");
+        for (Case c : cases) {
+            if (c.name.contains(filter)) {
+                run(c, (long) (seconds * 1e9));
+            }
+        }
+    }
+
+    // solvable mazes, the same ones every run
+    private static Grid[] mazes(int size, int density) {
+        MazeSampler sampler = new MazeSampler(size, size, density, new SplittableRandom(SEED + 31L * size + density));
+        Grid[] mazes = new Grid[MAZES_PER_CASE];
+        for (int i = 0; i < mazes.length; i++) {
+            mazes[i] = sampler.next();
+        }
+        return mazes;
+    }
+
+    private static void run(Case c, long iterationNanos) {
+        Operation operation = c.setup.get();
+        int[] next = {0}; // operation counter, carried across iterations so every maze gets its turn
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            iteration(operation, next, iterationNanos);
+        }
+
+        double[] opsPerSecond = new double[MEASUREMENT_ITERATIONS];
+        long operations = 0;
+        long nanos = 0;
+        long bytes = 0;
+        long gcMillis = 0;
+        for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+            long[] measured = iteration(operation, next, iterationNanos);
+            opsPerSecond[i] = measured[0] * 1e9 / measured[1];
+            operations += measured[0];
+            nanos += measured[1];
+            bytes += measured[2];
+            gcMillis += measured[3];
+        }
+
+        double mean = 0;
+        for (double score : opsPerSecond) mean += score;
+        mean /= opsPerSecond.length;
+        double variance = 0;
+        for (double score : opsPerSecond) variance += (score - mean) * (score - mean);
+        double error = Math.sqrt(variance / (opsPerSecond.length - 1));
+
+        System.out.printf("%-44s %14.3f %12.3f %14.0f %14.1f %10.3f%n", c.name, mean, error,
+                (double) bytes / operations, bytes / 1e6 / (nanos / 1e9), (double) gcMillis / operations);
+    }
+
+    // runs the operation until the time is up; returns operations, nanoseconds, bytes allocated and gc milliseconds
+    private static long[] iteration(Operation operation, int[] next, long iterationNanos) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long gcStart = gcMillis();
+        long bytesStart = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long operations = 0;
+        long elapsed;
+        do {
+            blackhole = operation.run(next[0]++);
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesStart;
+        return new long[]{operations, elapsed, bytes, gcMillis() - gcStart};
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(gc.getCollectionTime(), 0);
+        }
+        return total;
+    }
+}
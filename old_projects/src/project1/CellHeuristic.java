@@ -0,0 +1,9 @@
+package project1;
+
+/**
+ * Heuristic over raw coordinates, so that evaluating it does not box anything.
+ */
+@FunctionalInterface
+public interface CellHeuristic {
+    double estimate(int x, int y, int goalX, int goalY);
+}
@@ -0,0 +1,102 @@
+package project1;
+
+import java.util.Arrays;
+
+/**
+ * Numbers the cells a search touches 0, 1, 2, ... in the order they are first seen, so that per-cell search state can
+ * live in arrays that grow with the number of cells touched instead of the size of the grid. The numbers ("slots")
+ * are kept in an open-addressing hash table from cell index to slot. Like {@link SearchContext}, clearing starts a new
+ * generation instead of touching the table.
+ */
+class CellSlots {
+    private static final int HASH_MULTIPLIER = 0x9e3779b9; // golden ratio, spreads neighbouring cells over the table
+
+    private int[] keys = new int[16]; // cell of every bucket
+    private int[] values = new int[16]; // slot of every bucket
+    private int[] bucketStamp = new int[16]; // buckets not stamped with the current generation are empty
+    private int shift = 32 - 4; // the table has 1 << (32 - shift) buckets
+    private int generation = 1;
+    private int[] cells = new int[16]; // cell of every slot
+    private int size;
+
+    /**
+     * Forgets every cell in O(1).
+     */
+    void clear() {
+        generation++;
+        if (generation == 0) { // wrapped around, old stamps could alias the new generation
+            Arrays.fill(bucketStamp, 0);
+            generation = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * @return The number of cells seen since the last {@link #clear()}, slots are below this
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return The slot of a cell, -1 if it has not been seen since the last {@link #clear()}
+     */
+    int find(int cell) {
+        int mask = keys.length - 1;
+        for (int bucket = (cell * HASH_MULTIPLIER) >>> shift; bucketStamp[bucket] == generation; bucket = (bucket + 1) & mask) {
+            if (keys[bucket] == cell) return values[bucket];
+        }
+        return -1;
+    }
+
+    /**
+     * @return The slot of a cell, giving it the next free slot if it has not been seen yet
+     */
+    int slotOf(int cell) {
+        int mask = keys.length - 1;
+        int bucket = (cell * HASH_MULTIPLIER) >>> shift;
+        for (; bucketStamp[bucket] == generation; bucket = (bucket + 1) & mask) {
+            if (keys[bucket] == cell) return values[bucket];
+        }
+        int slot = size++;
+        if (slot == cells.length) {
+            cells = Arrays.copyOf(cells, 2 * slot);
+        }
+        cells[slot] = cell;
+        if (2 * size > keys.length) { // keep the table at most half full, the rehash places the new cell too
+            rehash(2 * keys.length);
+        } else {
+            insert(bucket, cell, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * @return The cell that was given a slot
+     */
+    int cellOf(int slot) {
+        return cells[slot];
+    }
+
+    private void insert(int bucket, int cell, int slot) {
+        keys[bucket] = cell;
+        values[bucket] = slot;
+        bucketStamp[bucket] = generation;
+    }
+
+    // moves every cell of the current generation into a table with the given number of buckets
+    private void rehash(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        bucketStamp = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        int mask = capacity - 1;
+        for (int slot = 0; slot < size; slot++) {
+            int bucket = (cells[slot] * HASH_MULTIPLIER) >>> shift;
+            while (bucketStamp[bucket] == generation) {
+                bucket = (bucket + 1) & mask;
+            }
+            insert(bucket, cells[slot], slot);
+        }
+    }
+}
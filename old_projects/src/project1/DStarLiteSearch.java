@@ -0,0 +1,254 @@
+package project1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * D* Lite (Koenig and Likhachev). Searches backwards from the goal and keeps its g/rhs values for the whole episode, so
+ * that after the robot discovers new obstacles only the affected part of the search tree is repaired instead of
+ * replanning from scratch. Every returned path is a shortest path given the blocked cells known at the time, so each
+ * single replan is as long as the one repeated A* would return; numberOfCellsProcessed counts the cells D* Lite
+ * expanded.
+ * <p>
+ * This is not a drop-in replacement for {@link AStarSearch} when the results must match it, e.g. when generating data.
+ * Where several shortest paths exist, the path read off the g-values is generally not the one A* would pick, the robot
+ * then walks into different obstacles and the rest of the episode diverges: trajectory lengths and all counters differ
+ * from repeated A* in most episodes. Reproducing A*'s choices would need a forward search from the robot, which moves
+ * between searches, so nothing could be reused. Use it to study replanning cost, not to produce A* trajectories; Main
+ * and Simulator only run it when asked to with {@link Planner#DSTAR_LITE}, and record the planner with the results.
+ * <p>
+ * Searching the same grid and goal with different blocked cells without reporting them leaves stale g-values behind;
+ * the path cannot then be read off them and the search throws an {@link IllegalStateException}.
+ */
+public class DStarLiteSearch implements IncrementalSearchAlgo {
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private CellHeuristic heuristic;
+    private Grid grid; // grid the current search state belongs to
+    private int goal;
+    private int lastStart;
+    private double km; // accumulated heuristic offset from the moving start
+    private double[] g;
+    private double[] rhs;
+    private int[] stamp; // cells not stamped with the current generation have g = rhs = infinity
+    private int generation;
+    private IndexedHeap open;
+    private int[] changed; // cells reported blocked since the last search
+    private int numChanged;
+    private IntPredicate isBlocked;
+
+    public DStarLiteSearch(CellHeuristic heuristic) {
+        this.heuristic = heuristic;
+        this.changed = new int[16];
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        this.grid = null;
+        this.goal = -1;
+        this.numChanged = 0;
+    }
+
+    @Override
+    public void cellBlocked(int index) {
+        if (grid == null) return; // nothing to repair yet
+        if (numChanged == changed.length) {
+            changed = Arrays.copyOf(changed, numChanged * 2);
+        }
+        changed[numChanged++] = index;
+    }
+
+    /**
+     * Runs D* Lite from start to end, reusing the previous search state if the grid and goal are the same as last time.
+     * Cells that become blocked between calls must be reported through {@link #cellBlocked(int)}.
+     *
+     * @throws IllegalStateException If the kept g-values do not lead from the start to the goal
+     *
+     * @param start Start Location
+     * @param end End Location
+     * @param grid Grid to Search
+     * @param isBlocked Function to check whether cells are blocked
+     * @return GridWorldInfo with the path found and the number of cells expanded by this call
+     */
+    @Override
+    public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        this.isBlocked = isBlocked;
+        int startIndex = grid.index(start.f1, start.f2);
+        int goalIndex = grid.index(end.f1, end.f2);
+        if (grid != this.grid || goalIndex != goal) {
+            initialize(grid, startIndex, goalIndex);
+        } else {
+            // the start has moved since the last search, shift all keys instead of reordering the queue
+            km += estimate(lastStart, startIndex);
+            lastStart = startIndex;
+            for (int i = 0; i < numChanged; i++) {
+                int cell = changed[i];
+                updateVertex(cell, startIndex);
+                for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                    int nbr = grid.neighbour(cell, direction);
+                    if (nbr != -1) updateVertex(nbr, startIndex);
+                }
+            }
+            numChanged = 0;
+        }
+
+        int numberOfCellsProcessed = computeShortestPath(startIndex);
+        if (getRhs(startIndex) == INFINITY) {
+            return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null); // path not found
+        }
+
+        // follow the g-values downhill from the start to reconstruct the path, every step must get closer to the goal
+        List<Tuple<Integer, Integer>> path = new ArrayList<>();
+        int current = startIndex;
+        while (current != goal) {
+            int next = -1;
+            double nextCost = INFINITY;
+            for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                int nbr = grid.neighbour(current, direction);
+                if (nbr == -1 || isBlocked.test(nbr)) continue;
+                if (1 + getG(nbr) < nextCost) {
+                    next = nbr;
+                    nextCost = 1 + getG(nbr);
+                }
+            }
+            if (next == -1 || !(getG(next) < getG(current))) {
+                throw new IllegalStateException("g-values do not descend to the goal at <" + grid.getX(current) + ","
+                        + grid.getY(current) + ">, were all newly blocked cells reported through cellBlocked?");
+            }
+            path.add(new Tuple<>(grid.getX(next), grid.getY(next)));
+            current = next;
+        }
+        return new GridWorldInfo(getRhs(startIndex), numberOfCellsProcessed, path);
+    }
+
+    private void initialize(Grid grid, int startIndex, int goalIndex) {
+        int numCells = grid.getNumCells();
+        if (stamp == null || stamp.length < numCells) {
+            g = new double[numCells];
+            rhs = new double[numCells];
+            stamp = new int[numCells];
+            open = new IndexedHeap(numCells);
+            generation = 0;
+        }
+        generation++;
+        if (generation == 0) { // wrapped around, old stamps could alias the new generation
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        open.clear();
+        this.grid = grid;
+        this.goal = goalIndex;
+        this.lastStart = startIndex;
+        this.km = 0;
+        this.numChanged = 0;
+
+        touch(goalIndex);
+        rhs[goalIndex] = 0;
+        open.add(goalIndex, primaryKey(goalIndex, startIndex), secondaryKey(goalIndex));
+    }
+
+    private int computeShortestPath(int startIndex) {
+        int numberOfCellsProcessed = 0;
+        while (!open.isEmpty()) {
+            int u = open.peek();
+            int order = IndexedHeap.compareKeys(open.getPrimaryKey(u), open.getSecondaryKey(u),
+                    primaryKey(startIndex, startIndex), secondaryKey(startIndex));
+            if (order >= 0 && getRhs(startIndex) == getG(startIndex)) break;
+
+            double oldPrimary = open.getPrimaryKey(u);
+            double oldSecondary = open.getSecondaryKey(u);
+            double primary = primaryKey(u, startIndex);
+            double secondary = secondaryKey(u);
+            if (IndexedHeap.compareKeys(oldPrimary, oldSecondary, primary, secondary) < 0) { // key is out of date
+                open.update(u, primary, secondary);
+                continue;
+            }
+
+            numberOfCellsProcessed++;
+            open.poll();
+            if (getG(u) > getRhs(u)) { // overconsistent: settle u
+                g[u] = rhs[u];
+                updateNeighbours(u, startIndex);
+            } else { // underconsistent: invalidate u and let it be recomputed
+                g[u] = INFINITY;
+                updateVertex(u, startIndex);
+                updateNeighbours(u, startIndex);
+            }
+        }
+        return numberOfCellsProcessed;
+    }
+
+    private void updateNeighbours(int cell, int startIndex) {
+        for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+            int nbr = grid.neighbour(cell, direction);
+            if (nbr != -1) updateVertex(nbr, startIndex);
+        }
+    }
+
+    private void updateVertex(int cell, int startIndex) {
+        touch(cell);
+        if (cell != goal) {
+            double best = INFINITY;
+            if (!isBlocked.test(cell)) {
+                for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                    int nbr = grid.neighbour(cell, direction);
+                    if (nbr == -1 || isBlocked.test(nbr)) continue;
+                    best = Math.min(best, 1 + getG(nbr));
+                }
+            }
+            rhs[cell] = best;
+        }
+        if (g[cell] != rhs[cell]) {
+            open.update(cell, primaryKey(cell, startIndex), secondaryKey(cell));
+        } else {
+            open.remove(cell);
+        }
+    }
+
+    private double primaryKey(int cell, int startIndex) {
+        return Math.min(getG(cell), getRhs(cell)) + estimate(startIndex, cell) + km;
+    }
+
+    /**
+     * Breaks ties between equal primary keys. Underconsistent cells (g < rhs) go first so stale g-values are
+     * invalidated before anything builds on them; after that, cells further from the goal (closer to the start) are
+     * preferred. The textbook min(g, rhs) tie-break would instead sweep the whole plateau of equal-f cells that open
+     * grids have before reaching the start.
+     */
+    private double secondaryKey(int cell) {
+        double g = getG(cell);
+        double rhs = getRhs(cell);
+        return g < rhs ? -INFINITY : -Math.min(g, rhs);
+    }
+
+    private void touch(int cell) {
+        if (stamp[cell] != generation) {
+            stamp[cell] = generation;
+            g[cell] = INFINITY;
+            rhs[cell] = INFINITY;
+        }
+    }
+
+    private double getG(int cell) {
+        return stamp[cell] == generation ? g[cell] : INFINITY;
+    }
+
+    private double getRhs(int cell) {
+        return stamp[cell] == generation ? rhs[cell] : INFINITY;
+    }
+
+    private double estimate(int from, int to) {
+        return heuristic.estimate(grid.getX(from), grid.getY(from), grid.getX(to), grid.getY(to));
+    }
+}
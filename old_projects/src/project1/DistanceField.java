@@ -0,0 +1,122 @@
+package project1;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Distance from every cell to a goal, computed by one breadth-first search backwards from the goal. A single field
+ * answers the shortest path length from any start and the optimal move from any cell, so filling in
+ * {@link GridWorldInfo#getTrajectoryLengthComplete()} or labelling every step of a trace needs no further searches.
+ * Distances are kept as unsigned 16-bit values and only widened to ints if the maze is long enough to need it.
+ */
+public class DistanceField {
+    public static final int UNREACHABLE = -1;
+
+    private static final int MAX_SHORT_DISTANCE = 0xfffe; // 0xffff marks unreachable cells
+
+    private Grid grid;
+    private short[] distance;
+    private int[] wideDistance; // replaces distance once a cell is further away than MAX_SHORT_DISTANCE
+
+    /**
+     * Computes the distances over the complete grid.
+     *
+     * @param grid Grid to measure
+     * @param goal Cell the distances lead to
+     */
+    public DistanceField(Grid grid, Tuple<Integer, Integer> goal) {
+        this(grid, goal, grid::isBlocked);
+    }
+
+    /**
+     * @param grid Grid to measure
+     * @param goal Cell the distances lead to, treated as free
+     * @param isBlocked Whether a cell is blocked, by cell index, e.g. every cell a robot has not seen to be free
+     */
+    public DistanceField(Grid grid, Tuple<Integer, Integer> goal, IntPredicate isBlocked) {
+        this.grid = grid;
+        int goalIndex = grid.index(goal.f1, goal.f2);
+        this.distance = new short[grid.getNumCells()];
+        Arrays.fill(distance, (short) UNREACHABLE);
+
+        int[] queue = new int[grid.getNumCells()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = goalIndex;
+        distance[goalIndex] = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int childDistance = getDistance(cell) + 1;
+            for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                int child = grid.neighbour(cell, direction);
+                if (child == -1 || getDistance(child) != UNREACHABLE || isBlocked.test(child)) continue;
+                setDistance(child, childDistance);
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @param index Index of the cell
+     * @return Length of a shortest path from the cell to the goal, {@link #UNREACHABLE} if there is none
+     */
+    public int getDistance(int index) {
+        if (wideDistance != null) return wideDistance[index];
+        int d = Short.toUnsignedInt(distance[index]);
+        return d > MAX_SHORT_DISTANCE ? UNREACHABLE : d;
+    }
+
+    public int getDistance(Tuple<Integer, Integer> cell) {
+        return getDistance(grid.index(cell.f1, cell.f2));
+    }
+
+    /**
+     * Returns the first move of a shortest path to the goal, with the codes of {@link Robot#getDirection(Tuple)}.
+     * Ties are broken in the order up, right, down, left.
+     *
+     * @param index Index of the cell
+     * @return The move, or -1 at the goal and from cells that can't reach it
+     */
+    public int getOptimalAction(int index) {
+        int d = getDistance(index);
+        if (d == UNREACHABLE || d == 0) return -1;
+        for (int move = GridPath.UP; move <= GridPath.LEFT; move++) {
+            int next = grid.neighbour(index, toGridDirection(move));
+            if (next != -1 && getDistance(next) == d - 1) return move;
+        }
+        throw new IllegalStateException("no neighbour of " + index + " is closer to the goal");
+    }
+
+    private static int toGridDirection(int move) {
+        switch (move) {
+            case GridPath.UP:
+                return Grid.UP;
+            case GridPath.RIGHT:
+                return Grid.RIGHT;
+            case GridPath.DOWN:
+                return Grid.DOWN;
+            default:
+                return Grid.LEFT;
+        }
+    }
+
+    private void setDistance(int index, int d) {
+        if (wideDistance == null && d > MAX_SHORT_DISTANCE) {
+            int[] wide = new int[distance.length];
+            for (int i = 0; i < distance.length; i++) {
+                wide[i] = getDistance(i);
+            }
+            wideDistance = wide;
+            distance = null;
+        }
+        if (wideDistance != null) {
+            wideDistance[index] = d;
+        } else {
+            distance[index] = (short) d;
+        }
+    }
+}
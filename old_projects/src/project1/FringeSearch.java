@@ -0,0 +1,144 @@
+package project1;
+
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Fringe Search: A* without a priority queue. The fringe is one doubly linked list that is walked from the front once
+ * per f-cost threshold. Cells within the threshold are expanded and their children inserted right behind them, so they
+ * are visited in the same pass ("now"); cells over the threshold stay where they are for the next pass ("later"), which
+ * uses the smallest f-cost that was skipped as its threshold. With unit costs most of the fringe shares a few f-costs,
+ * so there are few passes and every fringe operation is O(1) instead of a heap's O(log n).
+ * <p>
+ * The list lives in primitive arrays indexed by cell, the costs in the calling thread's {@link SearchContext}, so
+ * repeated searches allocate nothing but the path. numberOfCellsProcessed counts expansions and numberOfIterations
+ * counts passes over the fringe. With an admissible heuristic the paths are as short as those of {@link AStarSearch}.
+ */
+public class FringeSearch implements SearchAlgo {
+    private static final ThreadLocal<FringeList> PER_THREAD = ThreadLocal.withInitial(() -> new FringeList(0));
+    private static final int IN_FRINGE = 1; // mark of the cells currently in the list
+
+    private CellHeuristic heuristic;
+
+    public FringeSearch(CellHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        int goalX = end.f1;
+        int goalY = end.f2;
+        int startIndex = grid.index(start.f1, start.f2);
+        int endIndex = grid.index(goalX, goalY);
+
+        SearchContext context = SearchContext.forCurrentThread(grid.getNumCells());
+        context.begin();
+        FringeList fringe = PER_THREAD.get();
+        fringe.clear(grid.getNumCells());
+        double startHeuristic = heuristic.estimate(start.f1, start.f2, goalX, goalY);
+        context.discover(startIndex, 0, startHeuristic, -1);
+        context.setMark(startIndex, IN_FRINGE);
+        fringe.insertAfter(fringe.head, startIndex);
+
+        double threshold = startHeuristic;
+        int numberOfCellsProcessed = 0;
+        int numberOfIterations = 0;
+        while (!fringe.isEmpty()) {
+            numberOfIterations++;
+            double nextThreshold = Double.POSITIVE_INFINITY;
+            int cell = fringe.next[fringe.head];
+            while (cell != fringe.head) {
+                double cost = context.getCost(cell);
+                double f = cost + context.getHeuristicCost(cell);
+                if (f > threshold) { // later: leave it in place for the next pass
+                    nextThreshold = Math.min(nextThreshold, f);
+                    cell = fringe.next[cell];
+                    continue;
+                }
+                if (cell == endIndex) {
+                    // goal found, reconstruct path
+                    GridWorldInfo info = new GridWorldInfo(cost, numberOfCellsProcessed, GridPath.traceBack(grid, cell, context::getPrev));
+                    info.setNumberOfIterations(numberOfIterations);
+                    return info;
+                }
+
+                // now: expand, children go right behind the cell so this pass visits them next
+                numberOfCellsProcessed++;
+                for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                    int child = grid.neighbour(cell, direction);
+                    if (child == -1 || isBlocked.test(child)) continue;
+                    if (!context.isDiscovered(child)) {
+                        double childHeuristic = heuristic.estimate(grid.getX(child), grid.getY(child), goalX, goalY);
+                        context.discover(child, cost + 1, childHeuristic, cell);
+                    } else if (cost + 1 < context.getCost(child)) { // shorter path, (re)open the child
+                        if (context.getMark(child) == IN_FRINGE) fringe.remove(child);
+                        context.setCost(child, cost + 1);
+                        context.setPrev(child, cell);
+                    } else {
+                        continue;
+                    }
+                    context.setMark(child, IN_FRINGE);
+                    fringe.insertAfter(cell, child);
+                }
+                int next = fringe.next[cell];
+                fringe.remove(cell);
+                context.setMark(cell, 0);
+                cell = next;
+            }
+            threshold = nextThreshold;
+        }
+
+        // path not found
+        GridWorldInfo info = new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null);
+        info.setNumberOfIterations(numberOfIterations);
+        return info;
+    }
+
+    // circular doubly linked list of cell indices, with a sentinel head past the last cell
+    private static class FringeList {
+        int[] next;
+        int[] prev;
+        int head;
+
+        FringeList(int numCells) {
+            this.next = new int[numCells + 1];
+            this.prev = new int[numCells + 1];
+            this.head = numCells;
+        }
+
+        // empties the list, growing it to hold numCells cells; entries of cells not in the list are never read
+        void clear(int numCells) {
+            if (numCells > head) {
+                next = new int[numCells + 1];
+                prev = new int[numCells + 1];
+                head = numCells;
+            }
+            next[head] = head;
+            prev[head] = head;
+        }
+
+        boolean isEmpty() {
+            return next[head] == head;
+        }
+
+        void insertAfter(int at, int cell) {
+            int after = next[at];
+            next[cell] = after;
+            prev[cell] = at;
+            prev[after] = cell;
+            next[at] = cell;
+        }
+
+        void remove(int cell) {
+            next[prev[cell]] = next[cell];
+            prev[next[cell]] = prev[cell];
+        }
+    }
+}
@@ -1,53 +1,225 @@
 package project1;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
 
+/**
+ * The gridworld. Blocked state is packed into a bitset and {@link GridCell} objects are created on demand. Searches
+ * keep their own state, so one grid can be shared by any number of threads, searches and robots at once, as long as
+ * nobody calls {@link #setBlocked(int, boolean)} meanwhile.
+ * <p>
+ * Subclasses may keep the bitset elsewhere (see {@link MappedGrid}) by overriding {@link #isBlocked(int)},
+ * {@link #getBlockedWord(int)} and {@link #setBlocked(int, boolean)}.
+ */
 public class Grid {
 
-    private ArrayList<ArrayList<GridCell>> grid;
+    // neighbour directions, in the order searches generate children
+    public static final int RIGHT = 0;
+    public static final int LEFT = 1;
+    public static final int UP = 2;
+    public static final int DOWN = 3;
+    public static final int NUM_DIRECTIONS = 4;
+
+    private long[] blocked; // bit (y * xSize + x) is set if the cell is blocked
+    private GridCell[] cells; // created lazily, only for cells somebody asked for; racing threads at worst create equal copies
     private int xSize;
     private int ySize;
 
-    private boolean generateIsBlocked(int probabilityOfBlocked){
-        return Math.random()*100 < probabilityOfBlocked;
+    private static boolean generateIsBlocked(int probabilityOfBlocked, DoubleSupplier random){
+        return random.getAsDouble()*100 < probabilityOfBlocked;
+    }
+
+    static long[] generateGrid(int dimensionX, int dimensionY, int probabilityOfBlocked, DoubleSupplier random){
+        long[] blocked = new long[wordsFor(dimensionX * dimensionY)];
+        generateGrid(dimensionX, dimensionY, probabilityOfBlocked, random, blocked);
+        return blocked;
     }
 
-    private ArrayList<ArrayList<GridCell>> generateGrid(int dimensionX, int dimensionY, int probabilityOfBlocked){
-        ArrayList<ArrayList<GridCell>> grid = new ArrayList<>();
+    /**
+     * Same as {@link #generateGrid(int, int, int, DoubleSupplier)}, but clears and fills the given bitset instead of
+     * allocating one, e.g. for candidates that are mostly thrown away.
+     */
+    static void generateGrid(int dimensionX, int dimensionY, int probabilityOfBlocked, DoubleSupplier random, long[] blocked){
+        Arrays.fill(blocked, 0, wordsFor(dimensionX * dimensionY), 0L);
 
         for (int y = 0; y < dimensionY; y++){
-            ArrayList<GridCell> tempList = new ArrayList<>();
             for(int x = 0; x < dimensionX; x++){
+                boolean isBlocked;
                 if((x == 0 && y == 0) || (x == dimensionX-1 && y == dimensionY-1)){
-                    tempList.add(new GridCell(x,y,generateIsBlocked(0),0));
+                    isBlocked = generateIsBlocked(0, random);
                 }
                 else {
-                    tempList.add(new GridCell(x, y, generateIsBlocked(probabilityOfBlocked), 0));
+                    isBlocked = generateIsBlocked(probabilityOfBlocked, random);
+                }
+                if (isBlocked) {
+                    int index = y * dimensionX + x;
+                    blocked[index >>> 6] |= 1L << index;
                 }
-
             }
-            grid.add(tempList);
         }
+    }
 
-        return grid;
+    static int wordsFor(int numBits) {
+        return (numBits + 63) >>> 6;
     }
 
     public Grid(int xSize, int ySize, int probability) {
         this.xSize = xSize;
         this.ySize = ySize;
-        this.grid = generateGrid(xSize,ySize, probability);
+        this.blocked = generateGrid(xSize,ySize, probability, Math::random);
+    }
+
+    /**
+     * Generates a grid from the given random stream instead of the shared {@link Math#random()} generator, so that
+     * grids are reproducible and threads do not contend on one generator.
+     *
+     * @param xSize Width of grid
+     * @param ySize Height of grid
+     * @param probability Density of obstacles
+     * @param random Random stream used to place the obstacles
+     */
+    public Grid(int xSize, int ySize, int probability, SplittableRandom random) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.blocked = generateGrid(xSize,ySize, probability, random::nextDouble);
+    }
+
+    /**
+     * Wraps an already generated bitset, e.g. a candidate accepted by {@link MazeSampler}. The array is not copied.
+     *
+     * @param xSize Width of grid
+     * @param ySize Height of grid
+     * @param blocked Bit (y * xSize + x) is set if the cell is blocked
+     */
+    public Grid(int xSize, int ySize, long[] blocked) {
+        if (blocked.length != wordsFor(xSize * ySize)) {
+            throw new IllegalArgumentException("expected " + wordsFor(xSize * ySize) + " words, got " + blocked.length);
+        }
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.blocked = blocked;
+    }
+
+    /**
+     * For subclasses that store the blocked state themselves.
+     *
+     * @param xSize Width of grid
+     * @param ySize Height of grid
+     */
+    protected Grid(int xSize, int ySize) {
+        this.xSize = xSize;
+        this.ySize = ySize;
     }
 
     public GridCell getCell(Tuple<Integer, Integer> coordinate){
-        if( coordinate.f1 >=0 && coordinate.f2 >=0 && coordinate.f1 < xSize && coordinate.f2 < ySize){
-            return grid.get(coordinate.f2).get(coordinate.f1);
+        return getCell(coordinate.f1, coordinate.f2);
+    }
+
+    public GridCell getCell(int x, int y){
+        if(inBounds(x, y)){
+            return getCell(index(x, y));
         }
         return null;
     }
 
+    /**
+     * Returns the GridCell object for a cell index, creating it on first use.
+     *
+     * @param index Index of the cell (see {@link #index(int, int)})
+     * @return The GridCell instance
+     */
+    public GridCell getCell(int index){
+        GridCell[] cells = this.cells;
+        if (cells == null) {
+            cells = new GridCell[xSize * ySize];
+            this.cells = cells;
+        }
+        GridCell cell = cells[index];
+        if (cell == null) {
+            cell = new GridCell(getX(index), getY(index), isBlocked(index), 0);
+            cells[index] = cell;
+        }
+        return cell;
+    }
 
-    public ArrayList<ArrayList<GridCell>> getGrid() {
-        return grid;
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < xSize && y < ySize;
+    }
+
+    /**
+     * @return The index of the cell at (x, y), cells are numbered row by row
+     */
+    public int index(int x, int y) {
+        return y * xSize + x;
+    }
+
+    public int getX(int index) {
+        return index % xSize;
+    }
+
+    public int getY(int index) {
+        return index / xSize;
+    }
+
+    public int getNumCells() {
+        return xSize * ySize;
+    }
+
+    /**
+     * Returns the index of the neighbouring cell in the given direction.
+     *
+     * @param index Index of the cell
+     * @param direction One of {@link #RIGHT}, {@link #LEFT}, {@link #UP}, {@link #DOWN}
+     * @return Index of the neighbour, or -1 if it is outside the grid
+     */
+    public int neighbour(int index, int direction) {
+        switch (direction) {
+            case RIGHT:
+                return (index % xSize) + 1 < xSize ? index + 1 : -1;
+            case LEFT:
+                return index % xSize > 0 ? index - 1 : -1;
+            case UP:
+                return index >= xSize ? index - xSize : -1;
+            case DOWN:
+                return index + xSize < xSize * ySize ? index + xSize : -1;
+            default:
+                throw new IllegalArgumentException("invalid direction " + direction);
+        }
+    }
+
+    public boolean isBlocked(int index) {
+        return (blocked[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public boolean isBlocked(int x, int y) {
+        return isBlocked(index(x, y));
+    }
+
+    public int getNumWords() {
+        return wordsFor(getNumCells());
+    }
+
+    /**
+     * Returns 64 cells of blocked state at once: bit b of word w belongs to cell 64 * w + b.
+     * Bits past the last cell are always 0.
+     *
+     * @param wordIndex Index of the word
+     * @return The blocked bits
+     */
+    public long getBlockedWord(int wordIndex) {
+        return blocked[wordIndex];
+    }
+
+    public void setBlocked(int index, boolean isBlocked) {
+        if (isBlocked) {
+            blocked[index >>> 6] |= 1L << index;
+        } else {
+            blocked[index >>> 6] &= ~(1L << index);
+        }
+        if (cells != null) {
+            cells[index] = null; // cells are immutable, recreate it on next use
+        }
     }
 
     public int getXSize() {
@@ -70,7 +242,7 @@ public class Grid {
                 } else if (x == xSize - 1 && y == ySize - 1) {
                     builder.append("G");
                 } else {
-                    if (this.getCell(new Tuple<>(x,y)).isBlocked()) {
+                    if (this.isBlocked(x, y)) {
                         builder.append("X");
                     } else {
                         builder.append(" ");
@@ -1,71 +1,48 @@
 package project1;
 
+/**
+ * Immutable view of one cell of a {@link Grid}. Search state is kept by the searches themselves (see
+ * {@link SearchContext}), so cells can be shared freely between threads, robots and concurrent searches. Two cells are
+ * equal if they have the same coordinates.
+ */
 public class GridCell {
-    private int x;
-    private int y;
-    private boolean isBlocked;
-    private double cost;
-    private double heuristicCost;
-    private GridCell prev;
+    private final int x;
+    private final int y;
+    private final boolean isBlocked;
 
     public GridCell(int x, int y, boolean isBlocked, int i) {
         this.x = x;
         this.y = y;
         this.isBlocked = isBlocked;
-        this.cost = 0;
-        this.prev = null;
-    }
-
-    public double getHeuristicCost() {
-        return heuristicCost;
-    }
-
-    public void setHeuristicCost(double heuristicCost) {
-        this.heuristicCost = heuristicCost;
     }
 
     public int getX() {
         return x;
     }
 
-    public void setX(int x) {
-        this.x = x;
-    }
-
     public int getY() {
         return y;
     }
 
-    public void setY(int y) {
-        this.y = y;
-    }
-
     public boolean isBlocked() {
         return isBlocked;
     }
 
-    public void setBlocked(boolean blocked) {
-        isBlocked = blocked;
-    }
-
-    public double getCost() {
-        return cost;
-    }
-
-    public void setCost(double cost) {
-        this.cost = cost;
-    }
-
     public Tuple<Integer, Integer> getLocation(){
         return new Tuple<>(x,y);
     }
 
-    public GridCell getPrev() {
-        return prev;
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof GridCell))
+            return false;
+        GridCell cell = (GridCell) obj;
+        return cell.x == x && cell.y == y;
     }
 
-    public void setPrev(GridCell prev) {
-        this.prev = prev;
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
     }
 
     @Override
@@ -74,7 +51,6 @@ public class GridCell {
                 "x=" + x +
                 ", y=" + y +
                 ", isBlocked=" + isBlocked +
-                ", cost=" + cost +
                 '}';
     }
 
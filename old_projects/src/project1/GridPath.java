@@ -0,0 +1,257 @@
+package project1;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A path stored as its start cell and one 2-bit move per step, with the codes of {@link Robot#getDirection(Tuple)}:
+ * 0 up, 1 right, 2 down, 3 left. Like every path in {@link GridWorldInfo} the start cell is not an element; element i
+ * is the cell reached after i + 1 moves. Next to the 32 moves packed into each long, the cell at the start of every
+ * long is kept, so {@link #get(int)} is O(1) and a whole path costs about half a byte per step instead of a list node,
+ * a tuple and two boxed integers.
+ * <p>
+ * As a {@code List<Tuple<Integer, Integer>>} it only supports appending cells next to the last one; tuples are created
+ * when elements are read.
+ */
+public class GridPath extends AbstractList<Tuple<Integer, Integer>> implements RandomAccess {
+    public static final int UP = 0;
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    public static final int LEFT = 3;
+
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private long[] moves = new long[1]; // move i is in bits 2 * (i % 32) of word i / 32
+    private long[] anchors = new long[1]; // cell before the first move of every word, x in the high and y in the low half
+    private int size;
+    private int endX;
+    private int endY;
+
+    /**
+     * Creates an empty path.
+     *
+     * @param startX x coordinate of the start cell
+     * @param startY y coordinate of the start cell
+     */
+    public GridPath(int startX, int startY) {
+        this.anchors[0] = pack(startX, startY);
+        this.endX = startX;
+        this.endY = startY;
+    }
+
+    public GridPath(Tuple<Integer, Integer> start) {
+        this(start.f1, start.f2);
+    }
+
+    /**
+     * Builds the path to a cell by following back pointers, e.g. a search's previous cells.
+     *
+     * @param grid Grid the cells belong to
+     * @param end Index of the last cell
+     * @param prev Previous cell of every cell on the path, -1 for the start cell
+     * @return The path from the start cell to end
+     */
+    public static GridPath traceBack(Grid grid, int end, IntUnaryOperator prev) {
+        int length = 0;
+        int start = end;
+        for (int cell = prev.applyAsInt(end); cell != -1; cell = prev.applyAsInt(cell)) {
+            start = cell;
+            length++;
+        }
+        GridPath path = new GridPath(grid.getX(start), grid.getY(start));
+        path.ensureCapacity(length);
+        int cell = end;
+        for (int i = length - 1; i >= 0; i--) {
+            int previous = prev.applyAsInt(cell);
+            int move = move(grid.getX(cell) - grid.getX(previous), grid.getY(cell) - grid.getY(previous));
+            if (move == -1) {
+                throw new IllegalArgumentException("cells " + previous + " and " + cell + " are not neighbours");
+            }
+            path.moves[i >>> 5] |= (long) move << (i << 1);
+            cell = previous;
+        }
+        path.size = length;
+        if (length > 0) {
+            int w = (length - 1) >>> 5;
+            for (int i = 1; i <= w; i++) { // anchors follow from the full words before them
+                path.anchors[i] = shift(path.anchors[i - 1], path.moves[i - 1], 32);
+            }
+            long last = shift(path.anchors[w], path.moves[w], length - 32 * w);
+            path.endX = (int) (last >> 32);
+            path.endY = (int) last;
+        }
+        return path;
+    }
+
+    /**
+     * @return The move code from a cell to the cell dx, dy away, -1 if they are not neighbours
+     */
+    public static int move(int dx, int dy) {
+        if (Math.abs(dx) + Math.abs(dy) != 1) return -1;
+        if (dy == -1) return UP;
+        if (dy == 1) return DOWN;
+        return dx == 1 ? RIGHT : LEFT;
+    }
+
+    public Tuple<Integer, Integer> getStart() {
+        return new Tuple<>((int) (anchors[0] >> 32), (int) anchors[0]);
+    }
+
+    /**
+     * @return The last cell of the path, the start cell if the path is empty
+     */
+    public Tuple<Integer, Integer> getEnd() {
+        return new Tuple<>(endX, endY);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i Index of the move, 0 to size - 1
+     * @return The code of the move leading to element i
+     */
+    public int getMove(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("move " + i + " of " + size);
+        return (int) (moves[i >>> 5] >>> (i << 1)) & 3;
+    }
+
+    @Override
+    public Tuple<Integer, Integer> get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("index " + i + " of " + size);
+        long cell = cellAfter(i + 1);
+        return new Tuple<>((int) (cell >> 32), (int) cell);
+    }
+
+    /**
+     * Appends a cell, which must be a neighbour of the last cell.
+     */
+    @Override
+    public boolean add(Tuple<Integer, Integer> cell) {
+        int move = move(cell.f1 - endX, cell.f2 - endY);
+        if (move == -1) {
+            throw new IllegalArgumentException(cell + " is not next to the end of the path " + getEnd());
+        }
+        appendMove(move);
+        return true;
+    }
+
+    /**
+     * Appends one step in amortised O(1).
+     *
+     * @param move One of {@link #UP}, {@link #RIGHT}, {@link #DOWN}, {@link #LEFT}
+     */
+    public void appendMove(int move) {
+        if ((move & ~3) != 0) throw new IllegalArgumentException("invalid move " + move);
+        appendMoves(move, 1);
+    }
+
+    /**
+     * Appends the moves [from, to) of another path, 32 at a time. Element from - 1 of the other path (its start cell
+     * if from is 0) must be the last cell of this path.
+     *
+     * @param other Path to copy moves from, may be this path
+     * @param from First move to copy
+     * @param to End of the moves to copy, exclusive
+     */
+    public void append(GridPath other, int from, int to) {
+        if (from < 0 || to > other.size || from > to) {
+            throw new IndexOutOfBoundsException("moves [" + from + ", " + to + ") of " + other.size);
+        }
+        if (other.cellAfter(from) != pack(endX, endY)) {
+            throw new IllegalArgumentException("path does not continue from " + getEnd());
+        }
+        ensureCapacity(size + to - from);
+        for (int i = from; i < to; i += 32) {
+            int count = Math.min(32, to - i);
+            appendMoves(other.movesAt(i), count);
+        }
+    }
+
+    /**
+     * Concatenates another path that starts where this one ends.
+     */
+    public void append(GridPath other) {
+        append(other, 0, other.size);
+    }
+
+    /**
+     * @return A new path with the moves [from, to), starting at element from - 1 (the start cell if from is 0)
+     */
+    public GridPath subPath(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("moves [" + from + ", " + to + ") of " + size);
+        }
+        long start = cellAfter(from);
+        GridPath path = new GridPath((int) (start >> 32), (int) start);
+        path.append(this, from, to);
+        return path;
+    }
+
+    private void ensureCapacity(int numMoves) {
+        int words = (numMoves + 31) >>> 5;
+        if (words > moves.length) {
+            int capacity = Math.max(words, 2 * moves.length);
+            moves = Arrays.copyOf(moves, capacity);
+            anchors = Arrays.copyOf(anchors, capacity);
+        }
+    }
+
+    // appends count (at most 32) moves packed like in the moves array, starting at bit 0
+    private void appendMoves(long bits, int count) {
+        if (count == 0) return;
+        if (count < 32) bits &= (1L << (count << 1)) - 1;
+        ensureCapacity(size + count);
+        int offset = size & 31;
+        int w = size >>> 5;
+        if (offset == 0) anchors[w] = pack(endX, endY);
+        int first = Math.min(count, 32 - offset); // moves that still fit into word w
+        moves[w] |= bits << (offset << 1);
+        long end = shift(pack(endX, endY), bits, first);
+        if (first < count) {
+            anchors[w + 1] = end;
+            long rest = bits >>> (first << 1);
+            moves[w + 1] = rest;
+            end = shift(end, rest, count - first);
+        }
+        size += count;
+        endX = (int) (end >> 32);
+        endY = (int) end;
+        modCount++;
+    }
+
+    // up to 32 moves starting at move i, packed from bit 0; bits past the end of the path are 0
+    private long movesAt(int i) {
+        int w = i >>> 5;
+        int offset = (i & 31) << 1;
+        long bits = moves[w] >>> offset;
+        if (offset != 0 && w + 1 < moves.length) bits |= moves[w + 1] << (64 - offset);
+        return bits;
+    }
+
+    // the cell reached after the first i moves
+    private long cellAfter(int i) {
+        if (i == size) return pack(endX, endY);
+        return shift(anchors[i >>> 5], moves[i >>> 5], i & 31);
+    }
+
+    // the cell reached from a packed cell by the first count (at most 32) moves of a word
+    private static long shift(long cell, long bits, int count) {
+        long mask = count == 32 ? LOW_BITS : LOW_BITS & ((1L << (count << 1)) - 1);
+        long low = bits & mask;
+        long high = (bits >>> 1) & mask;
+        int ups = count - Long.bitCount(low | high);
+        int rights = Long.bitCount(low & ~high);
+        int downs = Long.bitCount(high & ~low);
+        int lefts = Long.bitCount(low & high);
+        return pack((int) (cell >> 32) + rights - lefts, (int) cell + downs - ups);
+    }
+
+    private static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
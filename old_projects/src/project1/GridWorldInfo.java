@@ -8,11 +8,16 @@ public class GridWorldInfo {
     double trajectoryLengthDiscovered; // running A* on the discovered gridworld
     double trajectoryLengthComplete; // running A* on the complete gridworld
     int numberOfCellsProcessed;
+    int numberOfJumpPoints; // jump points expanded, for jump point search
+    int numberOfIterations; // f-cost thresholds tried, for fringe search
+    int maxCellsProcessedPerSearch; // for a robot episode, the most cells processed by a single (re)plan
     long runtime;
     double weight; // weight of the heuristic used (EC)
+    double suboptimalityBound; // the path is at most this many times longer than a shortest one
     double backtrackSteps; // how many steps backwards are taken (EC)
 
-    List<Tuple<Integer, Integer>> path; // path does not include start cell
+    List<Tuple<Integer, Integer>> path; // path does not include start cell, usually a compact GridPath
+    List<Integer> cellsProcessedPerSearch; // for a robot episode, the cells processed by each (re)plan in order
 
     public GridWorldInfo(double trajectoryLength, int numberOfCellsProcessed, List<Tuple<Integer, Integer>> path) {
         this.trajectoryLength = trajectoryLength;
@@ -24,6 +29,7 @@ public class GridWorldInfo {
         this.trajectoryLengthComplete = -1;
         this.runtime = -1;
         this.weight = 1;
+        this.suboptimalityBound = 1;
         this.backtrackSteps = 0;
     }
 
@@ -67,6 +73,30 @@ public class GridWorldInfo {
         this.numberOfCellsProcessed = numberOfCellsProcessed;
     }
 
+    public int getMaxCellsProcessedPerSearch() {
+        return maxCellsProcessedPerSearch;
+    }
+
+    public void setMaxCellsProcessedPerSearch(int maxCellsProcessedPerSearch) {
+        this.maxCellsProcessedPerSearch = maxCellsProcessedPerSearch;
+    }
+
+    public int getNumberOfJumpPoints() {
+        return numberOfJumpPoints;
+    }
+
+    public void setNumberOfJumpPoints(int numberOfJumpPoints) {
+        this.numberOfJumpPoints = numberOfJumpPoints;
+    }
+
+    public int getNumberOfIterations() {
+        return numberOfIterations;
+    }
+
+    public void setNumberOfIterations(int numberOfIterations) {
+        this.numberOfIterations = numberOfIterations;
+    }
+
     public long getRuntime() {
         return runtime;
     }
@@ -83,6 +113,14 @@ public class GridWorldInfo {
         this.weight = weight;
     }
 
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    public void setSuboptimalityBound(double suboptimalityBound) {
+        this.suboptimalityBound = suboptimalityBound;
+    }
+
     public double getBacktrackSteps() {
         return backtrackSteps;
     }
@@ -99,6 +137,14 @@ public class GridWorldInfo {
         this.path = path;
     }
 
+    public List<Integer> getCellsProcessedPerSearch() {
+        return cellsProcessedPerSearch;
+    }
+
+    public void setCellsProcessedPerSearch(List<Integer> cellsProcessedPerSearch) {
+        this.cellsProcessedPerSearch = cellsProcessedPerSearch;
+    }
+
     public void addCellsProcessed(int additionalCells) {
         this.numberOfCellsProcessed += additionalCells;
     }
@@ -43,4 +43,46 @@ public class Heuristics {
         return Math.max(tempX, tempY);
     }
 
+    /**
+     * Primitive version of {@link #manhattanDistance(Tuple, Tuple)}, usable as a {@link CellHeuristic}
+     *
+     * @param x Current x coordinate
+     * @param y Current y coordinate
+     * @param goalX Goal x coordinate
+     * @param goalY Goal y coordinate
+     * @return Returns a double value
+     */
+    public static double manhattan(int x, int y, int goalX, int goalY) {
+        return Math.abs(x - goalX) + Math.abs(y - goalY);
+    }
+
+    /**
+     * Primitive version of {@link #euclideanDistance(Tuple, Tuple)}, usable as a {@link CellHeuristic}
+     *
+     * @param x Current x coordinate
+     * @param y Current y coordinate
+     * @param goalX Goal x coordinate
+     * @param goalY Goal y coordinate
+     * @return Returns a double value
+     */
+    public static double euclidean(int x, int y, int goalX, int goalY) {
+        double tempX = x - goalX;
+        double tempY = y - goalY;
+
+        return Math.sqrt(tempX * tempX + tempY * tempY);
+    }
+
+    /**
+     * Primitive version of {@link #chebyshevDistance(Tuple, Tuple)}, usable as a {@link CellHeuristic}
+     *
+     * @param x Current x coordinate
+     * @param y Current y coordinate
+     * @param goalX Goal x coordinate
+     * @param goalY Goal y coordinate
+     * @return Returns a double value
+     */
+    public static double chebyshev(int x, int y, int goalX, int goalY) {
+        return Math.max(Math.abs(x - goalX), Math.abs(y - goalY));
+    }
+
 }
@@ -0,0 +1,21 @@
+package project1;
+
+/**
+ * A search algorithm that keeps its state for a whole robot episode instead of starting over on every call. The
+ * {@link Robot} resets it when an episode starts and tells it about every obstacle it discovers, so the algorithm only
+ * has to repair the part of its state affected by the change. Instances hold per-episode state, so each robot needs
+ * its own instance.
+ */
+public interface IncrementalSearchAlgo extends SearchAlgo {
+    /**
+     * Forgets all state kept from previous searches.
+     */
+    void reset();
+
+    /**
+     * Called when a cell is discovered to be blocked, before the next search.
+     *
+     * @param index Index of the cell (see {@link Grid#index(int, int)})
+     */
+    void cellBlocked(int index);
+}
@@ -0,0 +1,218 @@
+package project1;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap over cell indices with a real decrease-key. Each cell is ordered by a primary key and then by a
+ * secondary key, and the heap remembers where every cell sits so that updating a key is O(log n) instead of the
+ * O(n) {@code PriorityQueue.remove}. Sifting mirrors {@link java.util.PriorityQueue}, so insertions and polls break
+ * ties the same way.
+ * <p>
+ * Keys and positions are stored in arrays indexed by cell, or, for a heap made for a {@link SearchContext} over a
+ * huge grid, by the cell's slot in a {@link CellSlots} table, so that they only grow with the cells that were added.
+ */
+public class IndexedHeap {
+    private int[] heap; // slots, which are the cells themselves unless there is a slot table
+    private int[] position; // position[slot] is only meaningful while heap[position[slot]] == slot
+    private double[] primary;
+    private double[] secondary;
+    private int size;
+    private CellSlots slots; // null if the arrays are indexed by cell
+
+    public IndexedHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.primary = new double[capacity];
+        this.secondary = new double[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * Creates a heap whose arrays are indexed by the slots of a table shared with a {@link SearchContext}, growing as
+     * cells are added. Clearing the table is up to the owner of the table.
+     *
+     * @param slots Table giving every cell added to the heap its slot
+     */
+    IndexedHeap(CellSlots slots) {
+        this(16);
+        this.slots = slots;
+    }
+
+    /**
+     * Makes sure cells in [0, capacity) can be stored. Existing contents are kept.
+     *
+     * @param capacity Number of distinct cells
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > heap.length) {
+            heap = Arrays.copyOf(heap, capacity);
+            position = Arrays.copyOf(position, capacity);
+            primary = Arrays.copyOf(primary, capacity);
+            secondary = Arrays.copyOf(secondary, capacity);
+        }
+    }
+
+    /**
+     * Empties the heap in O(1); stale positions are detected lazily by {@link #contains(int)}.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The cell at position i (0 to size - 1) of the heap, for visiting all cells in no particular order
+     */
+    public int get(int i) {
+        return cellOf(heap[i]);
+    }
+
+    public boolean contains(int cell) {
+        return containsSlot(find(cell));
+    }
+
+    public double getPrimaryKey(int cell) {
+        return primary[find(cell)];
+    }
+
+    public double getSecondaryKey(int cell) {
+        return secondary[find(cell)];
+    }
+
+    /**
+     * Inserts a cell that is not yet in the heap.
+     */
+    public void add(int cell, double primaryKey, double secondaryKey) {
+        int slot = cell;
+        if (slots != null) {
+            slot = slots.slotOf(cell);
+            if (slot >= position.length) {
+                ensureCapacity(Math.max(slot + 1, 2 * position.length));
+            }
+        }
+        primary[slot] = primaryKey;
+        secondary[slot] = secondaryKey;
+        siftUp(size++, slot);
+    }
+
+    /**
+     * Changes the keys of a cell, inserting it if it is not in the heap yet.
+     */
+    public void update(int cell, double primaryKey, double secondaryKey) {
+        int slot = find(cell);
+        if (!containsSlot(slot)) {
+            add(cell, primaryKey, secondaryKey);
+            return;
+        }
+        int k = position[slot];
+        boolean decreased = compareKeys(primaryKey, secondaryKey, primary[slot], secondary[slot]) < 0;
+        primary[slot] = primaryKey;
+        secondary[slot] = secondaryKey;
+        if (decreased) {
+            siftUp(k, slot);
+        } else {
+            siftDown(k, slot);
+        }
+    }
+
+    /**
+     * @return The cell with the smallest keys, without removing it
+     */
+    public int peek() {
+        return cellOf(heap[0]);
+    }
+
+    /**
+     * Removes and returns the cell with the smallest keys.
+     */
+    public int poll() {
+        int result = heap[0];
+        int n = --size;
+        int last = heap[n];
+        if (n > 0) {
+            siftDown(0, last);
+        }
+        return cellOf(result);
+    }
+
+    /**
+     * Removes a cell from the heap if it is present.
+     */
+    public void remove(int cell) {
+        int slot = find(cell);
+        if (!containsSlot(slot)) return;
+        int k = position[slot];
+        int n = --size;
+        if (k == n) return;
+        int moved = heap[n];
+        siftDown(k, moved);
+        if (heap[k] == moved) {
+            siftUp(k, moved);
+        }
+    }
+
+    // slot of a cell, -1 if the slot table has never seen it
+    private int find(int cell) {
+        return slots == null ? cell : slots.find(cell);
+    }
+
+    private int cellOf(int slot) {
+        return slots == null ? slot : slots.cellOf(slot);
+    }
+
+    private boolean containsSlot(int slot) {
+        if (slot == -1) return false;
+        int k = position[slot];
+        return k < size && heap[k] == slot;
+    }
+
+    private int compare(int a, int b) {
+        return compareKeys(primary[a], secondary[a], primary[b], secondary[b]);
+    }
+
+    /**
+     * Compares two (primary, secondary) key pairs lexicographically.
+     */
+    public static int compareKeys(double primaryA, double secondaryA, double primaryB, double secondaryB) {
+        int result = Double.compare(primaryA, primaryB);
+        return result != 0 ? result : Double.compare(secondaryA, secondaryB);
+    }
+
+    private void siftUp(int k, int slot) {
+        while (k > 0) {
+            int parent = (k - 1) >>> 1;
+            int e = heap[parent];
+            if (compare(slot, e) >= 0) break;
+            heap[k] = e;
+            position[e] = k;
+            k = parent;
+        }
+        heap[k] = slot;
+        position[slot] = k;
+    }
+
+    private void siftDown(int k, int slot) {
+        int half = size >>> 1;
+        while (k < half) {
+            int child = (k << 1) + 1;
+            int c = heap[child];
+            int right = child + 1;
+            if (right < size && compare(c, heap[right]) > 0) {
+                c = heap[child = right];
+            }
+            if (compare(slot, c) <= 0) break;
+            heap[k] = c;
+            position[c] = k;
+            k = child;
+        }
+        heap[k] = slot;
+        position[slot] = k;
+    }
+}
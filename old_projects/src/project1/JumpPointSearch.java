@@ -0,0 +1,171 @@
+package project1;
+
+import java.util.LinkedList;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Jump Point Search for the 4-connected, uniform-cost grid. Among equally short paths only those that move vertically
+ * as early as possible are considered, so horizontal runs are only left at a forced neighbour: a cell above or below
+ * that could not have been reached by turning one step earlier. Vertical runs stop wherever a horizontal run from them
+ * would find a jump point. A* is then run over jump points only, and the result is expanded back into cells.
+ * <p>
+ * numberOfCellsProcessed counts every cell stepped over while jumping, numberOfJumpPoints counts the jump points expanded.
+ */
+public class JumpPointSearch implements SearchAlgo {
+
+    private CellHeuristic heuristic;
+
+    public JumpPointSearch(CellHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        int goalX = end.f1;
+        int goalY = end.f2;
+        int startIndex = grid.index(start.f1, start.f2);
+        int endIndex = grid.index(goalX, goalY);
+        Jumper jumper = new Jumper(grid, isBlocked, end);
+
+        // create fringe and process start cell
+        SearchContext context = SearchContext.forCurrentThread(grid.getNumCells());
+        context.begin();
+        IndexedHeap fringe = context.getFringe();
+        double startHeuristic = heuristic.estimate(start.f1, start.f2, goalX, goalY);
+        context.discover(startIndex, 0, startHeuristic, -1);
+        fringe.add(startIndex, startHeuristic, startHeuristic);
+
+        int numberOfJumpPoints = 0;
+        while (!fringe.isEmpty()) {
+            numberOfJumpPoints++;
+            int current = fringe.poll();
+            double previousCost = context.getCost(current);
+            if (current == endIndex) {
+                // goal found, expand the jump points back into cells
+                LinkedList<Tuple<Integer, Integer>> path = new LinkedList<>();
+                int prev = context.getPrev(current);
+                while (prev != -1) {
+                    int x = grid.getX(current);
+                    int y = grid.getY(current);
+                    int dx = Integer.signum(grid.getX(prev) - x);
+                    int dy = Integer.signum(grid.getY(prev) - y);
+                    for (int cell = current; cell != prev; cell = grid.index(x, y)) {
+                        path.push(new Tuple<>(x, y));
+                        x += dx;
+                        y += dy;
+                    }
+                    current = prev;
+                    prev = context.getPrev(current);
+                }
+                GridWorldInfo info = new GridWorldInfo(previousCost, jumper.cellsScanned, path);
+                info.setNumberOfJumpPoints(numberOfJumpPoints);
+                return info;
+            }
+
+            // prune neighbours based on the direction current was reached from
+            int x = grid.getX(current);
+            int y = grid.getY(current);
+            int prev = context.getPrev(current);
+            int dx = prev == -1 ? 0 : Integer.signum(x - grid.getX(prev));
+            int dy = prev == -1 ? 0 : Integer.signum(y - grid.getY(prev));
+            if (prev == -1 || dy != 0) { // start or reached vertically: keep going vertically, or turn either way
+                if (prev == -1) {
+                    relax(context, jumper, current, previousCost, 0, -1);
+                    relax(context, jumper, current, previousCost, 0, 1);
+                } else {
+                    relax(context, jumper, current, previousCost, 0, dy);
+                }
+                relax(context, jumper, current, previousCost, 1, 0);
+                relax(context, jumper, current, previousCost, -1, 0);
+            } else { // reached horizontally: keep going, or turn towards a forced neighbour
+                relax(context, jumper, current, previousCost, dx, 0);
+                for (int vy = -1; vy <= 1; vy += 2) {
+                    if (jumper.isForced(x, y, dx, vy)) {
+                        relax(context, jumper, current, previousCost, 0, vy);
+                    }
+                }
+            }
+        }
+
+        // path not found
+        GridWorldInfo info = new GridWorldInfo(Double.NaN, jumper.cellsScanned, null);
+        info.setNumberOfJumpPoints(numberOfJumpPoints);
+        return info;
+    }
+
+    private void relax(SearchContext context, Jumper jumper, int current, double previousCost, int dx, int dy) {
+        Grid grid = jumper.grid;
+        Tuple<Integer, Integer> end = jumper.end;
+        int successor = jumper.jump(current, dx, dy);
+        if (successor == -1) return;
+        double cost = previousCost + Math.abs(grid.getX(successor) - grid.getX(current))
+                + Math.abs(grid.getY(successor) - grid.getY(current));
+        IndexedHeap fringe = context.getFringe();
+        if (!context.isDiscovered(successor)) {
+            double successorHeuristic = heuristic.estimate(grid.getX(successor), grid.getY(successor), end.f1, end.f2);
+            context.discover(successor, cost, successorHeuristic, current);
+            fringe.add(successor, cost + successorHeuristic, successorHeuristic);
+        } else if (cost < context.getCost(successor)) {
+            double successorHeuristic = context.getHeuristicCost(successor);
+            context.setCost(successor, cost);
+            context.setPrev(successor, current);
+            fringe.update(successor, cost + successorHeuristic, successorHeuristic);
+        }
+    }
+
+    /**
+     * Scans straight runs of one search. Kept per call, so that concurrent searches do not share counters.
+     */
+    private static class Jumper {
+        final Grid grid;
+        final IntPredicate isBlocked;
+        final Tuple<Integer, Integer> end;
+        int cellsScanned; // cells stepped over so far
+
+        Jumper(Grid grid, IntPredicate isBlocked, Tuple<Integer, Integer> end) {
+            this.grid = grid;
+            this.isBlocked = isBlocked;
+            this.end = end;
+        }
+
+        /**
+         * Moves from a cell in a straight line until a jump point is found.
+         *
+         * @return The index of the jump point, or -1 if the run hits an obstacle or the edge of the grid
+         */
+        int jump(int from, int dx, int dy) {
+            int x = grid.getX(from);
+            int y = grid.getY(from);
+            while (true) {
+                x += dx;
+                y += dy;
+                if (!isFree(x, y)) return -1;
+                cellsScanned++;
+                int index = grid.index(x, y);
+                if (x == end.f1 && y == end.f2) return index;
+                if (dx != 0) { // horizontal run, stop at forced neighbours
+                    if (isForced(x, y, dx, -1) || isForced(x, y, dx, 1)) return index;
+                } else { // vertical run, stop if a horizontal run from here finds something
+                    if (jump(index, 1, 0) != -1 || jump(index, -1, 0) != -1) return index;
+                }
+            }
+        }
+
+        // (x, y + vy) has to be entered from (x, y) when moving horizontally, since the cell before it is blocked
+        boolean isForced(int x, int y, int dx, int vy) {
+            return isFree(x, y + vy) && !isFree(x - dx, y + vy);
+        }
+
+        boolean isFree(int x, int y) {
+            return grid.inBounds(x, y) && !isBlocked.test(grid.index(x, y));
+        }
+    }
+}
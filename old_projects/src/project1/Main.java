@@ -1,51 +1,90 @@
 package project1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Main {
 
     /**
      * Main Execution Method. Runs simulations at the fixed density 30%.
      *
-     * @param args Input arguments X - Grid X size, Y - Grid Y size, Iterations - Number of Iterations (defaults to 100)
+     * @param args Input arguments X - Grid X size, Y - Grid Y size, Iterations - Number of Iterations (defaults to 100),
+     *             Seed - if given, runs reproducibly in parallel, Threads - worker threads (defaults to all processors).
+     *             With "--npy prefix" anywhere, the traces go to prefix-inputs.npy and prefix-outputs.npy instead of
+     *             stdout and stderr, and the optimal move of every step to prefix-labels.npy. With "--planner name"
+     *             anywhere, the robot plans with that {@link Planner} instead of repeated A*.
      */
-    public static void main(String[] args) {
-        int x = Integer.parseInt(args[0]);
-        int y = Integer.parseInt(args[1]);
-        int iterations = args.length > 2 ? Integer.parseInt(args[2]): 100;
+    public static void main(String[] args) throws IOException {
+        String npyPrefix = null;
+        Planner planner = Planner.ASTAR;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--npy")) {
+                npyPrefix = args[++i];
+            } else if (args[i].equals("--planner")) {
+                planner = Planner.fromName(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        int x = Integer.parseInt(positional.get(0));
+        int y = Integer.parseInt(positional.get(1));
+        int iterations = positional.size() > 2 ? Integer.parseInt(positional.get(2)): 100;
+
+        boolean labels = npyPrefix != null; // the text format has no place for labels
+        try (TraceSink sink = npyPrefix == null ? new TextTraceSink(System.out, System.err)
+                : new NpyTraceSink(Paths.get(npyPrefix + "-inputs.npy"), Paths.get(npyPrefix + "-outputs.npy"),
+                        Paths.get(npyPrefix + "-labels.npy"), x, y)) {
+            if (positional.size() > 3) {
+                long seed = Long.parseLong(positional.get(3));
+                int threads = positional.size() > 4 ? Integer.parseInt(positional.get(4)) : Runtime.getRuntime().availableProcessors();
+                runParallel(x, y, iterations, seed, threads, sink, labels, planner);
+            } else {
+                run(x, y, iterations, sink, labels, planner);
+            }
+        }
+    }
 
-        SearchAlgo algo = new AStarSearch(Heuristics::manhattanDistance);
+    private static void run(int x, int y, int iterations, TraceSink sink, boolean labels, Planner planner) {
         Tuple<Integer, Integer> start = new Tuple<>(0, 0);
         Tuple<Integer, Integer> end = new Tuple<>(x-1, y-1);
 
+        MazeSampler sampler = new MazeSampler(x, y, 30);
         for(int i = 0; i < iterations; i++) {
-            Grid world = getSolvableMaze(x, y, algo, 30);
-            Robot rob = new Robot(start, end, false, world, algo, true);
+            Grid world = sampler.next();
+            Robot rob = new Robot(start, end, false, world, planner.create(), true);
+            rob.setTraceSink(sink);
+            if (labels) rob.setOptimalActions(new DistanceField(world, end));
             rob.run();
         }
     }
 
     /**
-     * This method returns a solvable maze for given inputs. It uses a search algo to make sure there is a path to the
-     * end.
-     *
-     * @param xDim Dimension of the Grid's X coord
-     * @param yDim Dimension of the Grid's Y coord
-     * @param algo Algorithm to use for searching
-     * @param prob Probability of a space being blocked
-     * @return returns a solvable maze
+     * Runs the simulations on a pool of worker threads. Each iteration buffers its trace and the traces are written
+     * in iteration order, so the output only depends on the seed and not on the number of threads.
      */
-    public static Grid getSolvableMaze(int xDim, int yDim, SearchAlgo algo, int prob){
+    private static void runParallel(int x, int y, int iterations, long seed, int threads, TraceSink sink, boolean labels, Planner planner) {
         Tuple<Integer, Integer> start = new Tuple<>(0, 0);
-        Tuple<Integer, Integer> end = new Tuple<>(xDim-1, yDim-1);
-        GridWorldInfo completeResult;
-        Grid grid;
-
-        do{
-            grid = new Grid(xDim, yDim, prob);
-            completeResult = algo.search(start, end, grid, cell -> cell.isBlocked());
-        }while (completeResult.getPath() == null);
+        Tuple<Integer, Integer> end = new Tuple<>(x-1, y-1);
 
-        return grid;
+        OrderedParallelRunner.run(iterations, seed, threads, (i, random) -> {
+            Grid world = new MazeSampler(x, y, 30, random).next();
+            MemoryTraceSink trace = new MemoryTraceSink();
+            Robot rob = new Robot(start, end, false, world, planner.create(), true);
+            rob.setTraceSink(trace);
+            if (labels) rob.setOptimalActions(new DistanceField(world, end));
+            rob.run();
+            return trace;
+        }, trace -> {
+            try {
+                trace.replayTo(sink);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
-
 }
@@ -0,0 +1,117 @@
+package project1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read-only {@link Grid} whose blocked bits stay in a memory-mapped file instead of on the heap, for worlds too big
+ * to generate or keep around for every run. Opening a saved world only maps the file, nothing is parsed or copied,
+ * and any number of JVMs can map the same file at once. {@link GridCell}s are never cached, so only the cells somebody
+ * asks for exist at all; searching by index ({@link AStarSearch}, {@link BFSObject}) creates none. Searches using a
+ * {@link SearchContext} keep state only for the cells they discover on grids this large, see
+ * {@link SearchContext#MAX_DENSE_CELLS}.
+ * <p>
+ * File layout: the magic number, xSize and ySize (little-endian long, int, int), followed by the words of
+ * {@link Grid#getBlockedWord(int)} as little-endian longs.
+ */
+public class MappedGrid extends Grid {
+    private static final long MAGIC = 0x31444952474c5250L; // "PRLGRID1" read as little-endian
+    private static final int HEADER_SIZE = 16;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private LongBuffer blocked;
+
+    private MappedGrid(int xSize, int ySize, LongBuffer blocked) {
+        super(xSize, ySize);
+        this.blocked = blocked;
+    }
+
+    /**
+     * Maps a world written by {@link #save(Grid, Path)}. The mapping stays valid after this returns and is released
+     * once the grid is garbage collected.
+     *
+     * @param path File to map
+     * @return The mapped grid
+     * @throws IOException If the file can't be read or is not a saved world
+     */
+    public static MappedGrid open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException(path + " is not a saved grid");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int xSize = buffer.getInt(8);
+            int ySize = buffer.getInt(12);
+            if (buffer.getLong(0) != MAGIC || xSize <= 0 || ySize <= 0 || (long) xSize * ySize > Integer.MAX_VALUE - 63) {
+                throw new IOException(path + " is not a saved grid");
+            }
+            int numWords = wordsFor(xSize * ySize);
+            if (size != HEADER_SIZE + 8L * numWords) {
+                throw new IOException(path + " has " + size + " bytes, expected " + (HEADER_SIZE + 8L * numWords));
+            }
+            LongBuffer words = buffer.slice(HEADER_SIZE, 8 * numWords).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            return new MappedGrid(xSize, ySize, words);
+        }
+    }
+
+    /**
+     * Writes the blocked state of any grid in the format {@link #open(Path)} maps.
+     *
+     * @param grid Grid to save
+     * @param path File to (over)write
+     */
+    public static void save(Grid grid, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putInt(grid.getXSize()).putInt(grid.getYSize());
+            for (int word = 0; word < grid.getNumWords(); word++) {
+                if (buffer.remaining() < 8) write(channel, buffer);
+                buffer.putLong(grid.getBlockedWord(word));
+            }
+            write(channel, buffer);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Creates a new GridCell on every call, since a cache of all cells is what doesn't fit for huge grids.
+     */
+    @Override
+    public GridCell getCell(int index) {
+        return new GridCell(getX(index), getY(index), isBlocked(index), 0);
+    }
+
+    @Override
+    public boolean isBlocked(int index) {
+        return (blocked.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    @Override
+    public long getBlockedWord(int wordIndex) {
+        return blocked.get(wordIndex);
+    }
+
+    /**
+     * @throws UnsupportedOperationException Always, the mapping is shared read-only
+     */
+    @Override
+    public void setBlocked(int index, boolean isBlocked) {
+        throw new UnsupportedOperationException("mapped grids are read-only");
+    }
+}
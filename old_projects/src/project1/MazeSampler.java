@@ -0,0 +1,129 @@
+package project1;
+
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Rejection sampler for solvable mazes. Candidates are generated as raw bitsets and checked with the bitset BFS of
+ * {@link BFSObject}, so no {@link Grid} or {@link GridCell} objects are built for mazes that get thrown away. The
+ * candidate bitset and the search state are reused from one candidate to the next, and only an accepted maze is
+ * copied out. Keeps count of the candidates it tried, to see how much work the rejection costs at a given density.
+ */
+public class MazeSampler {
+
+    private static final long MAX_CANDIDATES = 10_000_000; // per maze; a maze this unlikely is not worth waiting for
+
+    private final int xSize;
+    private final int ySize;
+    private final int probability;
+    private final DoubleSupplier random;
+    private final long[] blocked; // reused for every candidate
+    private final long[] free; // reused for every candidate
+    private final BFSObject.Workspace workspace;
+    private final int tailMask;
+    private long numberOfCandidates;
+    private long numberOfMazes;
+
+    /**
+     * @param xSize Width of the mazes
+     * @param ySize Height of the mazes
+     * @param probability Density of obstacles
+     */
+    public MazeSampler(int xSize, int ySize, int probability) {
+        this(xSize, ySize, probability, Math::random);
+    }
+
+    /**
+     * Draws the mazes from the given random stream. A maze is then the same as the first solvable one out of
+     * repeated {@code new Grid(xSize, ySize, probability, random)}.
+     *
+     * @param xSize Width of the mazes
+     * @param ySize Height of the mazes
+     * @param probability Density of obstacles
+     * @param random Random stream the mazes are generated from
+     */
+    public MazeSampler(int xSize, int ySize, int probability, SplittableRandom random) {
+        this(xSize, ySize, probability, (DoubleSupplier) random::nextDouble);
+    }
+
+    private MazeSampler(int xSize, int ySize, int probability, DoubleSupplier random) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.probability = probability;
+        this.random = random;
+        this.blocked = new long[Grid.wordsFor(xSize * ySize)];
+        this.free = new long[blocked.length];
+        this.workspace = new BFSObject.Workspace(xSize, ySize);
+        this.tailMask = (xSize * ySize) & 63;
+    }
+
+    /**
+     * @return A new solvable maze, with the start at the top left and the goal at the bottom right
+     */
+    public Grid next() {
+        return new Grid(xSize, ySize, nextBlocked());
+    }
+
+    /**
+     * @return Blocked bitset of a new solvable maze, see {@link Grid#Grid(int, int, long[])}
+     */
+    public long[] nextBlocked() {
+        int start = 0;
+        int end = xSize * ySize - 1;
+        for (long attempt = 0; attempt < MAX_CANDIDATES; attempt++) {
+            Grid.generateGrid(xSize, ySize, probability, random, blocked);
+            numberOfCandidates++;
+            for (int w = 0; w < free.length; w++) {
+                free[w] = ~blocked[w];
+            }
+            if (tailMask != 0) free[free.length - 1] &= (1L << tailMask) - 1;
+
+            if (isBoxedIn(end) || isBoxedIn(start)) continue; // O(1) pre-check, boxed-in corners (probability ~p^2) skip the flood fill
+            if (workspace.isReachable(start, end, free)) {
+                numberOfMazes++;
+                return blocked.clone();
+            }
+        }
+        throw new IllegalStateException("no solvable " + xSize + "x" + ySize + " maze at density " + probability
+                + " after " + MAX_CANDIDATES + " candidates");
+    }
+
+    // whether a cell of a multi-cell maze has no free neighbour
+    private boolean isBoxedIn(int cell) {
+        if (xSize * ySize == 1) return false;
+        int x = cell % xSize;
+        int y = cell / xSize;
+        return (x + 1 >= xSize || !isFree(cell + 1))
+                && (x == 0 || !isFree(cell - 1))
+                && (y == 0 || !isFree(cell - xSize))
+                && (y + 1 >= ySize || !isFree(cell + xSize));
+    }
+
+    private boolean isFree(int cell) {
+        return (free[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public long getNumberOfCandidates() {
+        return numberOfCandidates;
+    }
+
+    public long getNumberOfMazes() {
+        return numberOfMazes;
+    }
+
+    @Override
+    public String toString() {
+        return summary(numberOfMazes, numberOfCandidates);
+    }
+
+    /**
+     * @param numberOfMazes Number of solvable mazes returned
+     * @param numberOfCandidates Number of candidates generated for them
+     * @return A one-line report of the rejection rate
+     */
+    public static String summary(long numberOfMazes, long numberOfCandidates) {
+        double rejectionRate = numberOfCandidates == 0 ? 0 : 1 - (double) numberOfMazes / numberOfCandidates;
+        return String.format("Sampled %d solvable mazes from %d candidates (rejection rate %.1f%%)",
+                numberOfMazes, numberOfCandidates, 100 * rejectionRate);
+    }
+}
@@ -0,0 +1,58 @@
+package project1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Keeps a trace in memory, one byte per cell, action and label, so that a worker thread can record it and the results can
+ * later be written out in order with {@link #replayTo(TraceSink)}.
+ */
+public class MemoryTraceSink implements TraceSink {
+    private ByteArrayOutputStream states = new ByteArrayOutputStream();
+    private ByteArrayOutputStream actions = new ByteArrayOutputStream();
+    private ByteArrayOutputStream labels = new ByteArrayOutputStream(); // optimal actions, -1 for unlabelled steps
+    private boolean labelled; // whether any step had a label
+    private int stateSize = -1;
+
+    @Override
+    public void record(byte[] state, int action) {
+        record(state, action, -1);
+    }
+
+    @Override
+    public void record(byte[] state, int action, int optimalAction) {
+        if (stateSize == -1) {
+            stateSize = state.length;
+        } else if (state.length != stateSize) {
+            throw new IllegalArgumentException("state has " + state.length + " cells, expected " + stateSize);
+        }
+        states.writeBytes(state);
+        actions.write(action);
+        labels.write(optimalAction);
+        labelled |= optimalAction != -1;
+    }
+
+    /**
+     * Records everything kept so far into another sink, in the original order.
+     *
+     * @param target Sink receiving the trace
+     */
+    public void replayTo(TraceSink target) throws IOException {
+        byte[] allStates = states.toByteArray();
+        byte[] allActions = actions.toByteArray();
+        byte[] allLabels = labels.toByteArray();
+        byte[] state = new byte[Math.max(stateSize, 0)];
+        for (int step = 0; step < allActions.length; step++) {
+            System.arraycopy(allStates, step * stateSize, state, 0, stateSize);
+            if (labelled) {
+                target.record(state, allActions[step], allLabels[step]);
+            } else {
+                target.record(state, allActions[step]);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
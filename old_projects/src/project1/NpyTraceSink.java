@@ -0,0 +1,72 @@
+package project1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Writes traces straight to .npy files: states as int8 of shape (steps, ySize, xSize) and actions as uint8 of shape
+ * (steps,), the arrays data/generate_data.py would otherwise build from the text output. Optimal-action labels, if
+ * wanted, go to a third uint8 file of shape (steps,), with 255 for steps recorded without a label.
+ */
+public class NpyTraceSink implements TraceSink {
+    private NpyWriter states;
+    private NpyWriter actions;
+    private NpyWriter labels; // null if labels are not kept
+
+    /**
+     * @param statesPath File receiving the states
+     * @param actionsPath File receiving the actions
+     * @param xSize Width of the grids traced
+     * @param ySize Height of the grids traced
+     */
+    public NpyTraceSink(Path statesPath, Path actionsPath, int xSize, int ySize) throws IOException {
+        this(statesPath, actionsPath, null, xSize, ySize);
+    }
+
+    /**
+     * @param statesPath File receiving the states
+     * @param actionsPath File receiving the actions
+     * @param labelsPath File receiving the optimal-action labels, null to drop them
+     * @param xSize Width of the grids traced
+     * @param ySize Height of the grids traced
+     */
+    public NpyTraceSink(Path statesPath, Path actionsPath, Path labelsPath, int xSize, int ySize) throws IOException {
+        this.states = new NpyWriter(statesPath, "|i1", ySize, xSize);
+        try {
+            this.actions = new NpyWriter(actionsPath, "|u1");
+            if (labelsPath != null) {
+                this.labels = new NpyWriter(labelsPath, "|u1");
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void record(byte[] state, int action) throws IOException {
+        record(state, action, -1);
+    }
+
+    @Override
+    public void record(byte[] state, int action, int optimalAction) throws IOException {
+        states.write(state);
+        actions.write((byte) action);
+        if (labels != null) {
+            labels.write((byte) optimalAction);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            states.close();
+        } finally {
+            try {
+                if (actions != null) actions.close();
+            } finally {
+                if (labels != null) labels.close();
+            }
+        }
+    }
+}
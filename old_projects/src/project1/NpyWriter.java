@@ -0,0 +1,117 @@
+package project1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a byte array to a NumPy .npy file one row at a time, without knowing the number of rows in advance. A
+ * fixed size header is reserved when the file is opened and filled in with the final shape on {@link #close()}.
+ */
+public class NpyWriter implements Closeable {
+    private static final int HEADER_SIZE = 128; // magic, version, length and dict; room for any row count
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private String descr;
+    private int[] rowShape;
+    private int rowSize;
+    private long numRows;
+
+    /**
+     * @param path File to (over)write
+     * @param descr NumPy type of the elements, '|i1' for int8 or '|u1' for uint8
+     * @param rowShape Shape of one row, empty if each row is a single element
+     */
+    public NpyWriter(Path path, String descr, int... rowShape) throws IOException {
+        this.descr = descr;
+        this.rowShape = rowShape.clone();
+        this.rowSize = 1;
+        for (int dim : rowShape) {
+            rowSize *= dim;
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, rowSize));
+        channel.write(header()); // placeholder, rewritten on close
+    }
+
+    /**
+     * @param row The next row, of the size given by the row shape
+     */
+    public void write(byte[] row) throws IOException {
+        if (row.length != rowSize) {
+            throw new IllegalArgumentException("row has " + row.length + " elements, expected " + rowSize);
+        }
+        if (buffer.remaining() < row.length) flush();
+        buffer.put(row);
+        numRows++;
+    }
+
+    /**
+     * @param value The next row, if rows are single elements
+     */
+    public void write(byte value) throws IOException {
+        if (rowSize != 1) {
+            throw new IllegalArgumentException("rows have " + rowSize + " elements");
+        }
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(value);
+        numRows++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private ByteBuffer header() {
+        StringBuilder shape = new StringBuilder("(").append(numRows).append(',');
+        for (int dim : rowShape) {
+            shape.append(' ').append(dim).append(',');
+        }
+        if (rowShape.length > 0) shape.setLength(shape.length() - 1); // (n,) but (n, y, x)
+        shape.append(')');
+
+        StringBuilder dict = new StringBuilder("{'descr': '").append(descr)
+                .append("', 'fortran_order': False, 'shape': ").append(shape).append(", }");
+        while (dict.length() < HEADER_SIZE - 11) {
+            dict.append(' ');
+        }
+        dict.append('\n');
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 0x93).put("NUMPY".getBytes(StandardCharsets.US_ASCII));
+        header.put((byte) 1).put((byte) 0); // format version 1.0
+        header.putShort((short) (HEADER_SIZE - 10));
+        header.put(dict.toString().getBytes(StandardCharsets.US_ASCII));
+        header.flip();
+        return header;
+    }
+
+    /**
+     * Writes the remaining rows and the final header, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            ByteBuffer header = header();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package project1;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs the iterations of an experiment on a worker pool while keeping the output deterministic. Every iteration gets
+ * its own random stream, split off one seeded {@link SplittableRandom} in iteration order, and results are handed to
+ * the consumer in iteration order on the calling thread. The output therefore only depends on the seed, not on the
+ * number of threads.
+ */
+public class OrderedParallelRunner {
+
+    @FunctionalInterface
+    public interface Task<T> {
+        T run(int iteration, SplittableRandom random);
+    }
+
+    /**
+     * @param iterations Number of iterations to run
+     * @param seed Seed from which every iteration's random stream is derived
+     * @param threads Number of worker threads
+     * @param task Work done for one iteration, must only use its own random stream
+     * @param consumer Receives the result of each iteration, in iteration order
+     */
+    public static <T> void run(int iterations, long seed, int threads, Task<T> task, Consumer<T> consumer) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            SplittableRandom root = new SplittableRandom(seed);
+            ArrayDeque<Future<T>> pending = new ArrayDeque<>(); // bounded, so finished results don't pile up
+            for (int i = 0; i < iterations; i++) {
+                if (pending.size() >= 2 * threads) {
+                    consumer.accept(await(pending.poll()));
+                }
+                final int iteration = i;
+                final SplittableRandom random = root.split();
+                pending.add(pool.submit(() -> task.run(iteration, random)));
+            }
+            while (!pending.isEmpty()) {
+                consumer.accept(await(pending.poll()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package project1;
+
+import java.util.function.Supplier;
+
+/**
+ * The planners Main and Simulator can drive the robot with, selected with "--planner name". Repeated A* is the
+ * default and the reference for generated data. D* Lite is opt-in: its replans are just as short, but it breaks ties
+ * between shortest paths differently, so its trajectories and counters do not match repeated A* (see
+ * {@link DStarLiteSearch}).
+ */
+public enum Planner {
+    ASTAR("astar", () -> new AStarSearch(Heuristics::manhattan)),
+    DSTAR_LITE("dstar-lite", () -> new DStarLiteSearch(Heuristics::manhattan));
+
+    private final String name;
+    private final Supplier<SearchAlgo> factory;
+
+    Planner(String name, Supplier<SearchAlgo> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    /**
+     * @return Name used on the command line and in the CSV rows
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Creates a search for one robot. Incremental searches keep per-episode state, so every robot needs its own.
+     */
+    public SearchAlgo create() {
+        return factory.get();
+    }
+
+    public static Planner fromName(String name) {
+        for (Planner planner : values()) {
+            if (planner.name.equals(name)) return planner;
+        }
+        throw new IllegalArgumentException("unknown planner " + name);
+    }
+}
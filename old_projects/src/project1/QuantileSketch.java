@@ -0,0 +1,87 @@
+package project1;
+
+/**
+ * Approximate quantiles of a stream of non-negative values in bounded memory. Values are counted in logarithmic
+ * buckets whose bounds grow by a constant factor, as in DDSketch, so every reported quantile is within a fixed
+ * relative error of a value that was actually at that rank. Memory depends on the range of the values, not on how
+ * many there are: with 1% error, values from 1 to 10^9 need about 1000 buckets.
+ */
+public class QuantileSketch {
+    private double relativeError;
+    private double logGamma; // log of the growth factor between bucket bounds
+    private long zeros; // values too small for the buckets
+    private long[] counts = new long[0]; // counts[i] belongs to bucket offset + i
+    private int offset;
+    private long count;
+
+    /**
+     * @param relativeError Bound on the relative error of the quantiles, between 0 and 1
+     */
+    public QuantileSketch(double relativeError) {
+        if (relativeError <= 0 || relativeError >= 1) {
+            throw new IllegalArgumentException("relative error must be between 0 and 1");
+        }
+        this.relativeError = relativeError;
+        this.logGamma = Math.log((1 + relativeError) / (1 - relativeError));
+    }
+
+    /**
+     * @param value A non-negative value; NaNs are ignored
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value " + value);
+        }
+        count++;
+        if (value < Double.MIN_NORMAL) {
+            zeros++;
+            return;
+        }
+        int bucket = (int) Math.ceil(Math.log(value) / logGamma);
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = bucket - 8;
+        } else if (bucket < offset || bucket >= offset + counts.length) {
+            int low = Math.min(offset, bucket);
+            int high = Math.max(offset + counts.length, bucket + 1);
+            int length = Math.max(high - low, 2 * counts.length); // grow geometrically
+            long[] grown = new long[length];
+            int newOffset = bucket < offset ? high - length : low;
+            System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+            counts = grown;
+            offset = newOffset;
+        }
+        counts[bucket - offset]++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param q The quantile, between 0 and 1
+     * @return An estimate of the q-quantile, NaN if no values were added
+     */
+    public double getQuantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1");
+        }
+        if (count == 0) return Double.NaN;
+        long rank = (long) Math.floor(q * (count - 1)); // 0-based rank of the value wanted
+        if (rank < zeros) return 0;
+        long seen = zeros;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // middle of the bucket (gamma^(k-1), gamma^k] in terms of relative error
+                return 2 * Math.exp((offset + i) * logGamma) / (1 + Math.exp(logGamma));
+            }
+        }
+        throw new IllegalStateException("rank " + rank + " of " + count);
+    }
+
+    public double getRelativeError() {
+        return relativeError;
+    }
+}
@@ -0,0 +1,152 @@
+package project1;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Real-Time Adaptive A* (Koenig and Likhachev). Each call runs A* for at most a fixed number of expansions and returns
+ * the path to the most promising cell on the fringe, which is only the full path when the goal was reached. The
+ * heuristic of every expanded cell s is then raised to f(best) - g(s), and the learned values are kept for the
+ * episode, so the robot does not wander in circles and always ends up at the goal if it can be reached. {@link Robot}
+ * follows each partial path and then plans again, so planning work between moves is bounded by the lookahead.
+ * <p>
+ * With an admissible heuristic the learned values never overestimate, so f(best) is a lower bound on the distance to
+ * the goal. If the goal can't be reached, the robot keeps wandering the area it can reach and f(best) keeps rising;
+ * once it reaches the number of cells, which no path is as long as, the search reports that there is no path. This
+ * keeps the work per call bounded, but on large grids it takes many moves to get there.
+ */
+public class RTAAStarSearch implements IncrementalSearchAlgo {
+
+    private CellHeuristic heuristic;
+    private int lookahead;
+    private Grid grid; // grid the learned heuristic belongs to
+    private int goal;
+    private double[] learned;
+    private int[] stamp; // only cells stamped with the current generation have a learned heuristic
+    private int generation;
+    private int[] expanded; // cells expanded by the current search
+
+    /**
+     * @param heuristic The heuristic to use when searching
+     * @param lookahead Maximum number of cells expanded per call, at least 1
+     */
+    public RTAAStarSearch(CellHeuristic heuristic, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("lookahead must be at least 1");
+        }
+        this.heuristic = heuristic;
+        this.lookahead = lookahead;
+        this.expanded = new int[lookahead];
+        reset();
+    }
+
+    @Override
+    public void reset() {
+        this.grid = null;
+        this.goal = -1;
+    }
+
+    /**
+     * Nothing to do, the learned heuristic stays consistent when cells become blocked.
+     */
+    @Override
+    public void cellBlocked(int index) {
+    }
+
+    /**
+     * Runs a bounded A* lookahead from start towards end and learns from it. The learned heuristic is kept if the grid
+     * and goal are the same as last time.
+     *
+     * @param start Start Location
+     * @param end End Location
+     * @param grid Grid to Search
+     * @param isBlocked Function to check whether cells are blocked
+     * @return GridWorldInfo with the path to the most promising cell found, or to the goal if it was reached
+     */
+    @Override
+    public GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked) {
+        return searchByIndex(start, end, grid, index -> isBlocked.test(grid.getCell(index)));
+    }
+
+    @Override
+    public GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        if (start.equals(end) || !grid.inBounds(start.f1, start.f2) || !grid.inBounds(end.f1, end.f2)) return null; // Checks invalid cells
+
+        int startIndex = grid.index(start.f1, start.f2);
+        int endIndex = grid.index(end.f1, end.f2);
+        if (grid != this.grid || endIndex != goal) {
+            startEpisode(grid, endIndex);
+        }
+
+        SearchContext context = SearchContext.forCurrentThread(grid.getNumCells());
+        context.begin();
+        IndexedHeap fringe = context.getFringe();
+        double startHeuristic = estimate(startIndex);
+        context.discover(startIndex, 0, startHeuristic, -1);
+        fringe.add(startIndex, startHeuristic, startHeuristic); // ordered by f-cost, then prefer higher g-cost over higher h-cost
+
+        // expand until the lookahead is used up or the goal is the most promising cell
+        int numberOfCellsProcessed = 0;
+        while (!fringe.isEmpty() && fringe.peek() != endIndex && numberOfCellsProcessed < lookahead) {
+            int currentCell = fringe.poll();
+            expanded[numberOfCellsProcessed++] = currentCell;
+            double previousCost = context.getCost(currentCell);
+
+            // process each child: right, left, up, down
+            for (int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                int childIndex = grid.neighbour(currentCell, direction);
+                if (childIndex == -1 || isBlocked.test(childIndex)) continue;
+                if (!context.isDiscovered(childIndex)) {
+                    double childHeuristic = estimate(childIndex);
+                    context.discover(childIndex, previousCost + 1, childHeuristic, currentCell);
+                    fringe.add(childIndex, previousCost + 1 + childHeuristic, childHeuristic);
+                } else if (previousCost + 1 < context.getCost(childIndex)) {
+                    double childHeuristic = context.getHeuristicCost(childIndex);
+                    context.setCost(childIndex, previousCost + 1);
+                    context.setPrev(childIndex, currentCell);
+                    fringe.update(childIndex, previousCost + 1 + childHeuristic, childHeuristic);
+                }
+            }
+        }
+
+        if (fringe.isEmpty()) {
+            return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null); // path not found
+        }
+
+        // every expanded cell s is at least f(best) - g(s) away from the goal
+        int best = fringe.peek();
+        double bestCost = fringe.getPrimaryKey(best);
+        for (int i = 0; i < numberOfCellsProcessed; i++) {
+            int cell = expanded[i];
+            learned[cell] = bestCost - context.getCost(cell);
+            stamp[cell] = generation;
+        }
+        if (bestCost >= grid.getNumCells()) { // no path is that long, the goal can't be reached from here
+            return new GridWorldInfo(Double.NaN, numberOfCellsProcessed, null);
+        }
+
+        GridPath path = GridPath.traceBack(grid, best, context::getPrev);
+        return new GridWorldInfo(path.size(), numberOfCellsProcessed, path);
+    }
+
+    private void startEpisode(Grid grid, int goal) {
+        int numCells = grid.getNumCells();
+        if (learned == null || learned.length < numCells) {
+            learned = new double[numCells];
+            stamp = new int[numCells];
+            generation = 0;
+        }
+        if (++generation == 0) { // wrapped around, old stamps could look current
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        this.grid = grid;
+        this.goal = goal;
+    }
+
+    private double estimate(int cell) {
+        if (stamp[cell] == generation) return learned[cell];
+        return heuristic.estimate(grid.getX(cell), grid.getY(cell), grid.getX(goal), grid.getY(goal));
+    }
+}
@@ -1,28 +1,38 @@
 package project1;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 public class Robot {
     private Tuple<Integer, Integer> current;
     private Tuple<Integer, Integer> goal;
     private Tuple<Integer, Integer> restartPoint;
     private boolean canSeeSideways;
-    private HashSet<GridCell> blocked;
-    private HashSet<GridCell> free;
+    private BitSet blocked; // known obstacles by cell index
+    private BitSet free; // known free cells by cell index
     private Grid grid;
     private SearchAlgo searchAlgo;
     private boolean verbose; // whether to output state data at each step
+    private TraceSink trace = new TextTraceSink(System.out, System.err); // where verbose output goes
+    private byte[] state; // reused buffer for the traced grid states
+    private DistanceField optimalActions; // labels every traced step with an optimal move, if set
 
     public Robot(Tuple<Integer, Integer> start, Tuple<Integer, Integer> goal, boolean canSeeSideways, Grid grid, SearchAlgo searchAlgo, boolean verbose) {
         this.current = start;
         this.restartPoint = this.current;
         this.goal = goal;
         this.canSeeSideways = canSeeSideways;
-        this.blocked = new HashSet<>();
-        this.free = new HashSet<>();
-        this.free.add(grid.getCell(start)); // start cell is always known/assumed to be free
+        this.blocked = new BitSet(grid.getNumCells());
+        this.free = new BitSet(grid.getNumCells());
+        this.free.set(grid.index(start.f1, start.f2)); // start cell is always known/assumed to be free
         this.grid = grid;
         this.searchAlgo = searchAlgo;
         this.verbose = verbose;
@@ -53,20 +63,47 @@ public class Robot {
         current = pos;
     }
 
-    public HashSet<GridCell> getKnownObstacles() {
-        return blocked;
+    /**
+     * @return Read-only view of the known obstacles, backed by the robot's knowledge
+     */
+    public Set<GridCell> getKnownObstacles() {
+        return new KnownCells(grid, blocked);
+    }
+
+    /**
+     * @return Read-only view of the known free cells, backed by the robot's knowledge
+     */
+    public Set<GridCell> getKnownFreeSpaces() {
+        return new KnownCells(grid, free);
+    }
+
+    public boolean isKnownObstacle(int index) {
+        return blocked.get(index);
     }
 
-    public HashSet<GridCell> getKnownFreeSpaces() {
-        return free;
+    public boolean isKnownFreeSpace(int index) {
+        return free.get(index);
     }
 
     public void addObstacle(GridCell obstacle) {
-        blocked.add(obstacle);
+        addObstacle(grid.index(obstacle.getX(), obstacle.getY()));
+    }
+
+    public void addObstacle(int index) {
+        if(!blocked.get(index)) {
+            blocked.set(index);
+            if(searchAlgo instanceof IncrementalSearchAlgo) {
+                ((IncrementalSearchAlgo) searchAlgo).cellBlocked(index);
+            }
+        }
     }
 
     public void addFreeSpace(GridCell freeSpace) {
-        free.add(freeSpace);
+        addFreeSpace(grid.index(freeSpace.getX(), freeSpace.getY()));
+    }
+
+    public void addFreeSpace(int index) {
+        free.set(index);
     }
 
     public Grid getGrid() {
@@ -77,6 +114,26 @@ public class Robot {
         return searchAlgo;
     }
 
+    /**
+     * Redirects the verbose output, which by default goes to stdout and stderr as text. The sink is not closed by
+     * the robot.
+     *
+     * @param trace Sink receiving a state/action pair for every step
+     */
+    public void setTraceSink(TraceSink trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Labels every traced step with the first move of a shortest path from the robot's cell, looked up in a distance
+     * field towards the goal, e.g. one over the complete grid.
+     *
+     * @param optimalActions Field to look the moves up in, null for no labels
+     */
+    public void setOptimalActions(DistanceField optimalActions) {
+        this.optimalActions = optimalActions;
+    }
+
     // attempt to follow a path, updating known obstacles along the way
     // stops prematurely if it bumps into an obstacle
     // returns the number of steps succesfully moved
@@ -85,33 +142,36 @@ public class Robot {
         for(Tuple<Integer, Integer> position : path) {
             // output data
             if(verbose) {
-                printGridState();
-                System.err.print(getDirectionCode(position));
+                try {
+                    if(optimalActions == null) {
+                        trace.record(getGridState(), getDirection(position));
+                    } else {
+                        int label = optimalActions.getOptimalAction(grid.index(current.f1, current.f2));
+                        trace.record(getGridState(), getDirection(position), label);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
             }
 
-            if(canSeeSideways) { // update obstacles based on fov
-                ArrayList<Tuple<Integer, Integer>> directions = new ArrayList<>(4);
-                directions.add(new Tuple<>(current.f1 + 1, current.f2)); // right
-                directions.add(new Tuple<>(current.f1 - 1, current.f2)); // left
-                directions.add(new Tuple<>(current.f1, current.f2 - 1)); // up
-                directions.add(new Tuple<>(current.f1, current.f2 + 1)); // down
-
-                for(Tuple<Integer, Integer> direction : directions) {
-                    GridCell cell = grid.getCell(direction);
-                    if(cell != null) {
-                        if(cell.isBlocked()) addObstacle(cell);
-                        else addFreeSpace(cell);
+            if(canSeeSideways) { // update obstacles based on fov: right, left, up, down
+                int currentIndex = grid.index(current.f1, current.f2);
+                for(int direction = 0; direction < Grid.NUM_DIRECTIONS; direction++) {
+                    int index = grid.neighbour(currentIndex, direction);
+                    if(index != -1) {
+                        if(grid.isBlocked(index)) addObstacle(index);
+                        else addFreeSpace(index);
                     }
                 }
             }
 
-            GridCell nextCell = grid.getCell(position);
-            if(nextCell.isBlocked()) { // if bump into an obstacle, stop
-                addObstacle(nextCell);
+            int nextIndex = grid.index(position.f1, position.f2);
+            if(grid.isBlocked(nextIndex)) { // if bump into an obstacle, stop
+                addObstacle(nextIndex);
                 break;
             } else {
                 numStepsTaken++;
-                addFreeSpace(nextCell);
+                addFreeSpace(nextIndex);
                 move(position);
                 if(numStepsTaken % backtrackDistance == 0){
                     setRestartPoint(position);
@@ -126,11 +186,24 @@ public class Robot {
     }
 
     public GridWorldInfo run(int backtrackDistance) {
-        GridWorldInfo gridWorldInfoGlobal = new GridWorldInfo(0, 0, new ArrayList<>());
+        // the trajectory is one continuous walk unless the robot jumps back to restart points
+        List<Tuple<Integer, Integer>> trajectory = backtrackDistance == 1 ? new GridPath(current) : new ArrayList<>();
+        GridWorldInfo gridWorldInfoGlobal = new GridWorldInfo(0, 0, trajectory);
+        gridWorldInfoGlobal.setCellsProcessedPerSearch(new ArrayList<>());
+        if(searchAlgo instanceof IncrementalSearchAlgo) { // start a new episode, known obstacles are picked up through isBlocked
+            ((IncrementalSearchAlgo) searchAlgo).reset();
+        }
         // loop while robot has not reached the destination
         while(!getLocation().f1.equals(getGoal().f1) || !getLocation().f2.equals(getGoal().f2)) {
             // find path
-            GridWorldInfo result = getSearchAlgo().search(getLocation(), getGoal(), getGrid(), getKnownObstacles()::contains);
+            GridWorldInfo result = getSearchAlgo().searchByBitSet(getLocation(), getGoal(), getGrid(), blocked);
+            if(result != null) {
+                gridWorldInfoGlobal.getCellsProcessedPerSearch().add(result.getNumberOfCellsProcessed());
+                gridWorldInfoGlobal.setMaxCellsProcessedPerSearch(Math.max(gridWorldInfoGlobal.getMaxCellsProcessedPerSearch(), result.getNumberOfCellsProcessed()));
+                // report the loosest plan of the episode, for weighted or anytime searches
+                gridWorldInfoGlobal.setWeight(Math.max(gridWorldInfoGlobal.getWeight(), result.getWeight()));
+                gridWorldInfoGlobal.setSuboptimalityBound(Math.max(gridWorldInfoGlobal.getSuboptimalityBound(), result.getSuboptimalityBound()));
+            }
 
             // if no path found, exit with failure
             if(result == null || result.getPath() == null) {
@@ -143,35 +216,35 @@ public class Robot {
             int stepsTaken = runPath(result.getPath(), backtrackDistance );
             gridWorldInfoGlobal.addTrajectoryLength(stepsTaken);
             gridWorldInfoGlobal.addCellsProcessed(result.getNumberOfCellsProcessed());
-            gridWorldInfoGlobal.getPath().addAll(result.getPath().subList(0, stepsTaken));
+            if(trajectory instanceof GridPath && result.getPath() instanceof GridPath) {
+                ((GridPath) trajectory).append((GridPath) result.getPath(), 0, stepsTaken);
+            } else {
+                trajectory.addAll(result.getPath().subList(0, stepsTaken));
+            }
         }
 
         return gridWorldInfoGlobal;
     }
 
     /**
-     * Outputs grid state to stdout.
+     * Encodes what the robot knows: 2 robot, 3 goal, 1 known free, -1 known blocked, 0 unknown.
+     *
+     * @return One byte per cell, row by row. The array is reused by the next call.
      */
-    public void printGridState() {
-        for(int y = 0; y < getGrid().getYSize(); y++) {
-            for(int x = 0; x < getGrid().getXSize(); x++) {
-                Tuple<Integer, Integer> pt = new Tuple<>(x, y);
-                if(pt.equals(current)) {
-                    System.out.print("2 ");
-                } else if(pt.equals(goal)) {
-                    System.out.print("3 ");
-                } else {
-                    GridCell cell = getGrid().getCell(pt);
-                    if(getKnownFreeSpaces().contains(cell)) {
-                        System.out.print("1 ");
-                    } else if(getKnownObstacles().contains(cell)) {
-                        System.out.print("-1 ");
-                    } else {
-                        System.out.print("0 ");
-                    }
-                }
-            }
+    public byte[] getGridState() {
+        if(state == null) {
+            state = new byte[getGrid().getNumCells()];
+        }
+        Arrays.fill(state, (byte) 0);
+        for(int index = blocked.nextSetBit(0); index >= 0; index = blocked.nextSetBit(index + 1)) {
+            state[index] = -1;
         }
+        for(int index = free.nextSetBit(0); index >= 0; index = free.nextSetBit(index + 1)) {
+            state[index] = 1;
+        }
+        state[getGrid().index(goal.f1, goal.f2)] = 3;
+        state[getGrid().index(current.f1, current.f2)] = 2;
+        return state;
     }
 
     /**
@@ -182,22 +255,73 @@ public class Robot {
      * @throws IllegalArgumentException If pt is not reachable from the current location in one step
      */
     public String getDirectionCode(Tuple<Integer, Integer> pt) throws IllegalArgumentException {
+        return getDirection(pt) + " ";
+    }
+
+    /**
+     * Returns the robot decision as a number: 0 up, 1 right, 2 down, 3 left.
+     *
+     * @param pt New point the robot is moving to
+     * @return Direction associated with the motion
+     * @throws IllegalArgumentException If pt is not reachable from the current location in one step
+     */
+    public int getDirection(Tuple<Integer, Integer> pt) throws IllegalArgumentException {
         int dx = pt.f1 - current.f1;
         int dy = pt.f2 - current.f2;
         if(Math.abs(dx) + Math.abs(dy) != 1) {
             throw new IllegalArgumentException("pt must be adjacent to current location");
         }
-        String result = null;
         if(dy == -1) {
-            result = "0 ";
+            return 0;
         } else if(dy == 1) {
-            result = "2 ";
+            return 2;
+        } else if(dx == -1) {
+            return 3;
+        } else {
+            return 1;
         }
-        if(dx == -1) {
-            result = "3 ";
-        } else if(dx == 1) {
-            result = "1 ";
+    }
+
+    // read-only set of the cells whose bit is set, GridCells are only created while iterating
+    private static class KnownCells extends AbstractSet<GridCell> {
+        private Grid grid;
+        private BitSet cells;
+
+        KnownCells(Grid grid, BitSet cells) {
+            this.grid = grid;
+            this.cells = cells;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if(!(o instanceof GridCell)) return false;
+            GridCell cell = (GridCell) o;
+            return grid.inBounds(cell.getX(), cell.getY()) && cells.get(grid.index(cell.getX(), cell.getY()));
+        }
+
+        @Override
+        public int size() {
+            return cells.cardinality();
+        }
+
+        @Override
+        public Iterator<GridCell> iterator() {
+            return new Iterator<GridCell>() {
+                private int next = cells.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public GridCell next() {
+                    if(next < 0) throw new NoSuchElementException();
+                    GridCell cell = grid.getCell(next);
+                    next = cells.nextSetBit(next + 1);
+                    return cell;
+                }
+            };
         }
-        return result;
     }
 }
@@ -1,8 +1,33 @@
 package project1;
 
+import java.util.BitSet;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 
 @FunctionalInterface
 public interface SearchAlgo {
     GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, Predicate<GridCell> isBlocked);
+
+    /**
+     * Same as {@link #search(Tuple, Tuple, Grid, Predicate)}, but blocked cells are tested by cell index
+     * (see {@link Grid#index(int, int)}) so that no {@link GridCell} objects are needed.
+     */
+    default GridWorldInfo searchByIndex(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, IntPredicate isBlocked) {
+        return search(start, end, grid, cell -> isBlocked.test(grid.index(cell.getX(), cell.getY())));
+    }
+
+    /**
+     * Same as {@link #searchByIndex(Tuple, Tuple, Grid, IntPredicate)}, with the blocked cells given as a bitset
+     * indexed by cell, e.g. the obstacles a {@link Robot} knows about.
+     */
+    default GridWorldInfo searchByBitSet(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid, BitSet blocked) {
+        return searchByIndex(start, end, grid, blocked::get);
+    }
+
+    /**
+     * Searches the complete grid, i.e. using the actual blocked state of every cell.
+     */
+    default GridWorldInfo search(Tuple<Integer, Integer> start, Tuple<Integer, Integer> end, Grid grid) {
+        return searchByIndex(start, end, grid, grid::isBlocked);
+    }
 }
@@ -0,0 +1,164 @@
+package project1;
+
+import java.util.Arrays;
+
+/**
+ * Reusable scratch space for grid searches. Per-cell search state (cost, heuristic cost, previous cell) lives in
+ * primitive arrays indexed by cell id instead of on the {@link GridCell}s themselves. Instead of clearing the arrays
+ * between searches, every search starts a new generation and a cell's entries only count once it has been
+ * discovered in the current generation.
+ * <p>
+ * Indexing by cell id costs about 52 bytes per cell of the grid, together with the fringe, whether the search touches
+ * the cell or not: some 21 GB for a 20000x20000 {@link MappedGrid}. Grids of more than {@link #MAX_DENSE_CELLS} cells
+ * therefore get a sparse context, whose arrays are indexed by the cells' {@link CellSlots} slots and grow with the
+ * number of cells discovered, at about 80 bytes per discovered cell. A search that only reads the state of cells it
+ * has discovered works the same on both, though the sparse one is slower per cell because of the hashing.
+ */
+public class SearchContext {
+    /**
+     * Largest grid searched with state indexed by cell id, about 200 MB of it.
+     */
+    public static final int MAX_DENSE_CELLS = 1 << 22;
+
+    private static final ThreadLocal<SearchContext> PER_THREAD = ThreadLocal.withInitial(() -> new SearchContext(0));
+    private static final ThreadLocal<SearchContext> SPARSE_PER_THREAD = ThreadLocal.withInitial(() -> new SearchContext(new CellSlots()));
+
+    private double[] cost;
+    private double[] heuristicCost;
+    private int[] prev;
+    private int[] mark; // free for the search to use, e.g. to remember when a cell was closed
+    private int[] stamp;
+    private int generation;
+    private IndexedHeap fringe;
+    private CellSlots slots; // null if the arrays are indexed by cell
+
+    public SearchContext(int numCells) {
+        this.cost = new double[numCells];
+        this.heuristicCost = new double[numCells];
+        this.prev = new int[numCells];
+        this.mark = new int[numCells];
+        this.stamp = new int[numCells];
+        this.generation = 0;
+        this.fringe = new IndexedHeap(numCells);
+    }
+
+    private SearchContext(CellSlots slots) {
+        this(16);
+        this.slots = slots;
+        this.fringe = new IndexedHeap(slots);
+    }
+
+    /**
+     * Returns the context owned by the calling thread, grown to fit at least numCells cells, or the thread's sparse
+     * context if there are more than {@link #MAX_DENSE_CELLS}. A context must not be used by two searches at the same
+     * time, so searches should not call back into other searches on the same thread.
+     *
+     * @param numCells Number of cells in the grid about to be searched
+     * @return The calling thread's context
+     */
+    public static SearchContext forCurrentThread(int numCells) {
+        if (numCells > MAX_DENSE_CELLS) {
+            return SPARSE_PER_THREAD.get();
+        }
+        SearchContext context = PER_THREAD.get();
+        context.ensureCapacity(numCells);
+        return context;
+    }
+
+    public void ensureCapacity(int numCells) {
+        if (numCells > stamp.length) {
+            cost = Arrays.copyOf(cost, numCells);
+            heuristicCost = Arrays.copyOf(heuristicCost, numCells);
+            prev = Arrays.copyOf(prev, numCells);
+            mark = Arrays.copyOf(mark, numCells);
+            stamp = Arrays.copyOf(stamp, numCells);
+            fringe.ensureCapacity(numCells);
+        }
+    }
+
+    /**
+     * Starts a new search: forgets every discovered cell and empties the fringe, without touching the arrays.
+     */
+    public void begin() {
+        if (slots != null) {
+            slots.clear();
+        }
+        generation++;
+        if (generation == 0) { // wrapped around, old stamps could alias the new generation
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        fringe.clear();
+    }
+
+    public boolean isDiscovered(int cell) {
+        if (slots == null) {
+            return stamp[cell] == generation;
+        }
+        int slot = slots.find(cell);
+        return slot != -1 && slot < stamp.length && stamp[slot] == generation;
+    }
+
+    /**
+     * Marks a cell as discovered in the current search and initializes its state. Its mark starts at 0.
+     */
+    public void discover(int cell, double cost, double heuristicCost, int prev) {
+        int slot = cell;
+        if (slots != null) {
+            slot = slots.slotOf(cell);
+            if (slot >= stamp.length) {
+                ensureCapacity(Math.max(slot + 1, 2 * stamp.length)); // the fringe grows along
+            }
+        }
+        stamp[slot] = generation;
+        this.mark[slot] = 0;
+        this.cost[slot] = cost;
+        this.heuristicCost[slot] = heuristicCost;
+        this.prev[slot] = prev;
+    }
+
+    // the state of the other accessors is only defined for cells discovered in the current search
+
+    public double getCost(int cell) {
+        return cost[slot(cell)];
+    }
+
+    public void setCost(int cell, double cost) {
+        this.cost[slot(cell)] = cost;
+    }
+
+    public double getHeuristicCost(int cell) {
+        return heuristicCost[slot(cell)];
+    }
+
+    public void setHeuristicCost(int cell, double heuristicCost) {
+        this.heuristicCost[slot(cell)] = heuristicCost;
+    }
+
+    /**
+     * @return The cell this cell was reached from, or -1 for the start cell
+     */
+    public int getPrev(int cell) {
+        return prev[slot(cell)];
+    }
+
+    public void setPrev(int cell, int prev) {
+        this.prev[slot(cell)] = prev;
+    }
+
+    public int getMark(int cell) {
+        return mark[slot(cell)];
+    }
+
+    public void setMark(int cell, int mark) {
+        this.mark[slot(cell)] = mark;
+    }
+
+    private int slot(int cell) {
+        return slots == null ? cell : slots.find(cell);
+    }
+
+    public IndexedHeap getFringe() {
+        return fringe;
+    }
+}
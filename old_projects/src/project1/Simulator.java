@@ -4,81 +4,210 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Simulator {
+    private static final int SWEEP_MIN_DENSITY = 0;
+    private static final int SWEEP_MAX_DENSITY = 40;
+
     /**
      * Main Execution Method
      *
-     * @param args Input arguments X - Gird X size, Y - Grid Y size, Iterations - Number of Iterations (defaults to 100)
+     * @param args Input arguments X - Gird X size, Y - Grid Y size, Iterations - Number of Iterations (defaults to 100),
+     *             Seed - if given, runs reproducibly in parallel, Threads - worker threads (defaults to all processors).
+     *             With "--planner name" anywhere, the robot plans with that {@link Planner} instead of repeated A*.
+     *             With "--sweep" first, runs Iterations episodes at every density from 0 to 40% instead, see
+     *             {@link #sweep(int, int, int, long, int)}.
      */
-    public static void main(String[] args) {
-        int x = Integer.parseInt(args[0]);
-        int y = Integer.parseInt(args[1]);
-        int iterations = args.length > 2 ? Integer.parseInt(args[2]): 100;
-        generateData(x, y, iterations, 30);
+    public static void main(String[] args) throws FileNotFoundException {
+        Planner planner = Planner.ASTAR;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--planner")) {
+                planner = Planner.fromName(args[++i]);
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() > 0 && positional.get(0).equals("--sweep")) {
+            if (planner != Planner.ASTAR) {
+                throw new IllegalArgumentException("the sweep only runs repeated A*");
+            }
+            int x = Integer.parseInt(positional.get(1));
+            int y = Integer.parseInt(positional.get(2));
+            int iterations = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : 100;
+            long seed = positional.size() > 4 ? Long.parseLong(positional.get(4)) : 520;
+            int threads = positional.size() > 5 ? Integer.parseInt(positional.get(5)) : Runtime.getRuntime().availableProcessors();
+            sweep(x, y, iterations, seed, threads);
+            return;
+        }
+        int x = Integer.parseInt(positional.get(0));
+        int y = Integer.parseInt(positional.get(1));
+        int iterations = positional.size() > 2 ? Integer.parseInt(positional.get(2)): 100;
+        if (positional.size() > 3) {
+            long seed = Long.parseLong(positional.get(3));
+            int threads = positional.size() > 4 ? Integer.parseInt(positional.get(4)) : Runtime.getRuntime().availableProcessors();
+            generateData(x, y, iterations, 30, seed, threads, planner);
+        } else {
+            generateData(x, y, iterations, 30, planner);
+        }
     }
 
     public static void generateData(int xDim, int yDim, int iterations, int prob) {
-        SearchAlgo algo = new AStarSearch(Heuristics::manhattanDistance);
+        generateData(xDim, yDim, iterations, prob, Planner.ASTAR);
+    }
+
+    /**
+     * Same as {@link #generateData(int, int, int, int)}, with the robot planning with the given planner.
+     *
+     * @param planner Planner the robot uses, recorded in every row of the csv
+     */
+    public static void generateData(int xDim, int yDim, int iterations, int prob, Planner planner) {
         Tuple<Integer, Integer> start = new Tuple<>(0, 0);
         Tuple<Integer, Integer> end = new Tuple<>(xDim-1, yDim-1);
 
+        MazeSampler sampler = new MazeSampler(xDim, yDim, prob);
         ArrayList<GridWorldInfo> results = new ArrayList<>();
         for(int i = 0; i < iterations; i++) {
-            Grid world = getSolvableMaze(xDim, yDim, algo, prob);
+            Grid world = sampler.next();
             printMaze(world);
-            Robot rob = new Robot(start, end, true, world, algo, false);
-            results.add(rob.run());
+            Robot rob = new Robot(start, end, true, world, planner.create(), false);
+            GridWorldInfo result = rob.run();
+            addOptimalLengths(result, rob, start, end);
+            results.add(result);
+        }
+
+        System.err.println(sampler);
+        printResultsToCsv("p1-realagent.csv", planner, results);
+    }
+
+    /**
+     * Same as {@link #generateData(int, int, int, int)}, but runs the iterations on a pool of worker threads. Each
+     * iteration draws its maze from its own stream derived from the seed, and mazes and results are written in
+     * iteration order, so the output only depends on the seed and not on the number of threads.
+     *
+     * @param seed Seed the mazes are generated from
+     * @param threads Number of worker threads
+     */
+    public static void generateData(int xDim, int yDim, int iterations, int prob, long seed, int threads) {
+        generateData(xDim, yDim, iterations, prob, seed, threads, Planner.ASTAR);
+    }
+
+    /**
+     * Same as {@link #generateData(int, int, int, int, long, int)}, with the robot planning with the given planner.
+     *
+     * @param planner Planner the robot uses, recorded in every row of the csv
+     */
+    public static void generateData(int xDim, int yDim, int iterations, int prob, long seed, int threads, Planner planner) {
+        Tuple<Integer, Integer> start = new Tuple<>(0, 0);
+        Tuple<Integer, Integer> end = new Tuple<>(xDim-1, yDim-1);
+
+        LongAdder candidates = new LongAdder();
+        ArrayList<GridWorldInfo> results = new ArrayList<>();
+        OrderedParallelRunner.run(iterations, seed, threads, (i, random) -> {
+            MazeSampler sampler = new MazeSampler(xDim, yDim, prob, random);
+            Grid world = sampler.next();
+            candidates.add(sampler.getNumberOfCandidates());
+            Robot rob = new Robot(start, end, true, world, planner.create(), false);
+            GridWorldInfo result = rob.run();
+            addOptimalLengths(result, rob, start, end);
+            return new Tuple<>(mazeToString(world), result);
+        }, result -> {
+            System.out.print(result.f1);
+            results.add(result.f2);
+        });
+
+        System.err.println(MazeSampler.summary(iterations, candidates.sum()));
+        printResultsToCsv("p1-realagent.csv", planner, results);
+    }
+
+    /**
+     * Runs repeated A* with and without sideways vision at every density from 0 to 40% in 1% steps, all in this
+     * process on one worker pool. Every episode goes to p1-sweep-raw.csv and the statistics of every density and agent
+     * to p1-sweep-summary.csv, both written while the sweep runs.
+     *
+     * @param iterations Episodes per density and agent
+     * @param seed Seed the mazes are generated from
+     * @param threads Number of worker threads
+     */
+    public static void sweep(int xDim, int yDim, int iterations, long seed, int threads) throws FileNotFoundException {
+        List<String> agents = List.of("sideways", "blind");
+        List<SweepRunner.Episode> episodes = List.of(
+                (x, y, density, random) -> runEpisode(x, y, density, random, true),
+                (x, y, density, random) -> runEpisode(x, y, density, random, false));
+        SweepRunner runner = new SweepRunner("trajectory_length", "trajectory_length_discovered",
+                "trajectory_length_complete", "cells_processed", "max_cells_processed_per_search");
+        try (PrintWriter raw = new PrintWriter(new File("p1-sweep-raw.csv"));
+             PrintWriter summary = new PrintWriter(new File("p1-sweep-summary.csv"))) {
+            runner.run(SweepRunner.densitySweep(xDim, yDim, SWEEP_MIN_DENSITY, SWEEP_MAX_DENSITY, 1, iterations, agents, episodes),
+                    seed, threads, raw, summary);
         }
+    }
 
-        printResultsToCsv("p1-realagent.csv", results);
+    private static double[] runEpisode(int xDim, int yDim, int prob, SplittableRandom random, boolean canSeeSideways) {
+        Tuple<Integer, Integer> start = new Tuple<>(0, 0);
+        Tuple<Integer, Integer> end = new Tuple<>(xDim-1, yDim-1);
+        Grid world = new MazeSampler(xDim, yDim, prob, random).next();
+        Robot rob = new Robot(start, end, canSeeSideways, world, new AStarSearch(Heuristics::manhattan), false);
+        GridWorldInfo result = rob.run();
+        addOptimalLengths(result, rob, start, end);
+        return new double[]{result.getTrajectoryLength(), result.getTrajectoryLengthDiscovered(),
+                result.getTrajectoryLengthComplete(), result.getNumberOfCellsProcessed(),
+                result.getMaxCellsProcessedPerSearch()};
+    }
+
+    /**
+     * Fills in the shortest path lengths on the complete grid and on the cells the robot found to be free, from one
+     * distance field each instead of two more A* searches. Lengths are NaN if there is no such path.
+     */
+    private static void addOptimalLengths(GridWorldInfo result, Robot rob, Tuple<Integer, Integer> start, Tuple<Integer, Integer> end) {
+        Grid world = rob.getGrid();
+        DistanceField complete = new DistanceField(world, end);
+        DistanceField discovered = new DistanceField(world, end, index -> !rob.isKnownFreeSpace(index));
+        result.setTrajectoryLengthComplete(toLength(complete.getDistance(start)));
+        result.setTrajectoryLengthDiscovered(toLength(discovered.getDistance(start)));
+    }
+
+    private static double toLength(int distance) {
+        return distance == DistanceField.UNREACHABLE ? Double.NaN : distance;
     }
 
     public static void printMaze(Grid world) {
+        System.out.print(mazeToString(world));
+    }
+
+    private static String mazeToString(Grid world) {
+        StringBuilder sb = new StringBuilder(2 * world.getNumCells());
         for(int y = 0; y < world.getYSize(); y++) {
             for(int x = 0; x < world.getXSize(); x++) {
-                Tuple<Integer, Integer> pt = new Tuple<>(x, y);
-                GridCell cell = world.getCell(pt);
-                if (cell.isBlocked()) {
-                    System.out.print("1 ");
+                if (world.isBlocked(x, y)) {
+                    sb.append("1 ");
                 } else {
-                    System.out.print("0 ");
+                    sb.append("0 ");
                 }
             }
         }
+        return sb.toString();
     }
 
     /**
-     * This method returns a solvable maze for given inputs. It uses a search algo to make sure there is a path to the
-     * end.
+     * Takes a list of GridWorldInfo: {@link GridWorldInfo} and prints it to a pre-designed csv template
      *
-     * @param xDim Dimension of the Grid's X coord
-     * @param yDim Dimension of the Grid's Y coord
-     * @param algo Algorithm to use for searching
-     * @param prob Probability of a space being blocked
-     * @return returns a solvable maze
+     * @param fileName name of the file
+     * @param gridWorldInfo List of GridWorldInfos
      */
-    public static Grid getSolvableMaze(int xDim, int yDim, SearchAlgo algo, int prob){
-        Tuple<Integer, Integer> start = new Tuple<>(0, 0);
-        Tuple<Integer, Integer> end = new Tuple<>(xDim-1, yDim-1);
-        GridWorldInfo completeResult;
-        Grid grid;
-
-        do{
-            grid = new Grid(xDim, yDim, prob);
-            completeResult = algo.search(start, end, grid, cell -> cell.isBlocked());
-        }while (completeResult.getPath() == null);
-
-        return grid;
+    public static void printResultsToCsv(String fileName, List<GridWorldInfo> gridWorldInfo){
+        printResultsToCsv(fileName, Planner.ASTAR, gridWorldInfo);
     }
 
     /**
-     * Takes a list of GridWorldInfo: {@link GridWorldInfo} and prints it to a pre-designed csv template
+     * Same as {@link #printResultsToCsv(String, List)}, for results of the given planner.
      *
      * @param fileName name of the file
+     * @param planner Planner the results came from, written in the last column of every row
      * @param gridWorldInfo List of GridWorldInfos
      */
-    public static void printResultsToCsv(String fileName, List<GridWorldInfo> gridWorldInfo){
+    public static void printResultsToCsv(String fileName, Planner planner, List<GridWorldInfo> gridWorldInfo){
         try (PrintWriter writer = new PrintWriter(new File(fileName))) {
 
             StringBuilder sb = new StringBuilder();
@@ -99,6 +228,12 @@ public class Simulator {
             sb.append("Runtime Weight (EC)");
             sb.append(',');
             sb.append("Backtrack Steps (EC)");
+            sb.append(',');
+            sb.append("Suboptimality Bound");
+            sb.append(',');
+            sb.append("Max Cells Processed per Search");
+            sb.append(',');
+            sb.append("Planner");
             sb.append('\n');
             writer.write(sb.toString());
 
@@ -121,6 +256,12 @@ public class Simulator {
                 sb.append(info.getWeight());
                 sb.append(',');
                 sb.append(info.getBacktrackSteps());
+                sb.append(',');
+                sb.append(info.getSuboptimalityBound());
+                sb.append(',');
+                sb.append(info.getMaxCellsProcessedPerSearch());
+                sb.append(',');
+                sb.append(planner.getName());
                 sb.append('\n');
                 writer.write(sb.toString());
             }
@@ -40,7 +40,7 @@ public class Test {
 
         // test repeated A* search
         System.out.println("Testing Repeated A*...");
-        SearchAlgo aso = new AStarSearch(Heuristics::manhattanDistance);
+        SearchAlgo aso = new AStarSearch(Heuristics::manhattan);
         Tuple<Integer, Integer> start = new Tuple<>(0, 0);
         Tuple<Integer, Integer> end = new Tuple<>(x-1, y-1);
         Robot robot = new Robot(start, end, true, world, aso, false);
@@ -48,6 +48,80 @@ public class Test {
         printResults(result, world, robot, cell -> cell.isBlocked());
         System.out.println();
 
+        // test D* Lite, whose replans are as short as A*'s but may break ties differently, so the trajectory can differ
+        System.out.println("Testing D* Lite...");
+        Robot dStarRobot = new Robot(start, end, true, world, new DStarLiteSearch(Heuristics::manhattan), false);
+        printResults(dStarRobot.run(), world, dStarRobot, cell -> cell.isBlocked());
+        System.out.println();
+
+        // test that D* Lite refuses to read a path off stale g-values, here a wall it was not told about
+        System.out.println("Testing D* Lite with an unreported wall...");
+        Grid open = new Grid(10, 10, new long[(10 * 10 + 63) / 64]);
+        DStarLiteSearch stale = new DStarLiteSearch(Heuristics::manhattan);
+        Tuple<Integer, Integer> corner = new Tuple<>(9, 9);
+        stale.searchByIndex(start, corner, open, index -> false);
+        try {
+            GridWorldInfo staleResult = stale.searchByIndex(start, corner, open, index -> open.getX(index) == 5);
+            throw new AssertionError("expected IllegalStateException, got trajectory length " + staleResult.getTrajectoryLength());
+        } catch (IllegalStateException e) {
+            System.out.println("rejected: " + e.getMessage());
+        }
+        System.out.println();
+
+        // test Adaptive A*, whose replans are as short as A*'s with fewer cells expanded, though ties can still go differently
+        System.out.println("Testing Adaptive A*...");
+        Robot adaptiveRobot = new Robot(start, end, true, world, new AdaptiveAStarSearch(Heuristics::manhattan), false);
+        GridWorldInfo adaptiveResult = adaptiveRobot.run();
+        printResults(adaptiveResult, world, adaptiveRobot, cell -> cell.isBlocked());
+        System.out.println("cells expanded per replan (repeated A*): " + result.getCellsProcessedPerSearch());
+        System.out.println("cells expanded per replan (adaptive A*): " + adaptiveResult.getCellsProcessedPerSearch());
+        System.out.println();
+
+        // test ARA* with an expansion budget, which may give a longer trajectory within the reported bound
+        System.out.println("Testing ARA*...");
+        Robot araRobot = new Robot(start, end, true, world, new ARAStarSearch(Heuristics::manhattan, 3, 0.5, x * y / 10, Long.MAX_VALUE), false);
+        GridWorldInfo araResult = araRobot.run();
+        printResults(araResult, world, araRobot, cell -> cell.isBlocked());
+        System.out.println("final weight: " + araResult.getWeight() + ", suboptimality bound: " + araResult.getSuboptimalityBound());
+        System.out.println();
+
+        // test RTAA*, which plans at most a fixed number of expansions between moves
+        System.out.println("Testing RTAA*...");
+        Robot rtaaRobot = new Robot(start, end, true, world, new RTAAStarSearch(Heuristics::manhattan, 20), false);
+        GridWorldInfo rtaaResult = rtaaRobot.run();
+        printResults(rtaaResult, world, rtaaRobot, cell -> cell.isBlocked());
+        System.out.println("most cells expanded by one plan (RTAA*): " + rtaaResult.getMaxCellsProcessedPerSearch()
+                + ", repeated A*: " + result.getMaxCellsProcessedPerSearch());
+        System.out.println();
+
+        // test HPA* after a wall goes up between two queries, the second must see the wall like A* does
+        System.out.println("Testing HPA* after setBlocked...");
+        Grid empty = new Grid(20, 20, new long[(20 * 20 + 63) / 64]);
+        HPAStarSearch hpa = new HPAStarSearch(empty, 10);
+        Tuple<Integer, Integer> behindWall = new Tuple<>(5, 0);
+        hpa.search(start, behindWall, empty);
+        for (int j = 0; j < 10; j++) {
+            hpa.setBlocked(empty.index(3, j), true);
+        }
+        System.out.println("trajectory length (HPA*): " + hpa.search(start, behindWall, empty).getTrajectoryLength()
+                + ", A*: " + aso.search(start, behindWall, empty).getTrajectoryLength());
+        System.out.println();
+
+        // test that repeated A* still expands cells in the same order as the original PriorityQueue search,
+        // the expected counters were recorded with that search on this seed
+        System.out.println("Checking repeated A* counters on a fixed seed...");
+        Grid seeded = new Grid(30, 30, 25, new SplittableRandom(48));
+        Robot seededRobot = new Robot(start, new Tuple<>(29, 29), true, seeded, aso, false);
+        GridWorldInfo seededResult = seededRobot.run();
+        String counters = seededResult.getNumberOfCellsProcessed() + " cells expanded, trajectory length "
+                + seededResult.getTrajectoryLength() + ", " + seededRobot.getKnownFreeSpaces().size() + " known free cells";
+        if (seededResult.getNumberOfCellsProcessed() != 1783 || seededResult.getTrajectoryLength() != 148
+                || seededRobot.getKnownFreeSpaces().size() != 224) {
+            throw new AssertionError("expected 1783 cells expanded, trajectory length 148.0, 224 known free cells, got " + counters);
+        }
+        System.out.println(counters);
+        System.out.println();
+
         // test regular A* search
         System.out.println("Running A* on discovered gridworld...");
         Predicate<GridCell> discoveredAndFree = robot.getKnownFreeSpaces()::contains;
@@ -0,0 +1,36 @@
+package project1;
+
+import java.io.PrintStream;
+
+/**
+ * Writes traces as space separated text, states to one stream and actions to another. This is the format
+ * data/generate_data.py parses when it reads the output of {@link Main}.
+ */
+public class TextTraceSink implements TraceSink {
+    private PrintStream states;
+    private PrintStream actions;
+
+    public TextTraceSink(PrintStream states, PrintStream actions) {
+        this.states = states;
+        this.actions = actions;
+    }
+
+    @Override
+    public void record(byte[] state, int action) {
+        StringBuilder sb = new StringBuilder(3 * state.length);
+        for (byte cell : state) {
+            sb.append(cell).append(' ');
+        }
+        states.print(sb);
+        actions.print(action + " ");
+    }
+
+    /**
+     * Flushes the streams but leaves them open, since they are usually stdout and stderr.
+     */
+    @Override
+    public void close() {
+        states.flush();
+        actions.flush();
+    }
+}
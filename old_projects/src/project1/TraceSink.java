@@ -0,0 +1,28 @@
+package project1;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the state/action pairs a verbose {@link Robot} produces at every step.
+ */
+public interface TraceSink extends Closeable {
+
+    /**
+     * @param state One byte per cell, row by row: 2 robot, 3 goal, 1 known free, -1 known blocked, 0 unknown
+     * @param action Direction of the move made from this state, see {@link Robot#getDirection}
+     */
+    void record(byte[] state, int action) throws IOException;
+
+    /**
+     * Records a step together with the move a shortest path would take from it. Sinks that don't keep labels only
+     * record the state and action.
+     *
+     * @param state One byte per cell, as in {@link #record(byte[], int)}
+     * @param action Direction of the move made from this state
+     * @param optimalAction Direction of an optimal move from this state, see {@link DistanceField#getOptimalAction(int)}
+     */
+    default void record(byte[] state, int action, int optimalAction) throws IOException {
+        record(state, action);
+    }
+}
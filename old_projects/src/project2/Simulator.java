@@ -9,18 +9,34 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.function.Supplier;
 // import java.util.function.BiFunction;
 // import java.util.function.Predicate;
 
 
 public class Simulator {
+    private static final int SWEEP_MIN_DENSITY = 0;
+    private static final int SWEEP_MAX_DENSITY = 40;
+
     /**
      * Main Execution Method
      *
      * @param args Input arguments X - Grid X size, Y - Entity.Grid Y size,
-     *             Iterations - Number of Iterations (defaults to 100)
+     *             Iterations - Number of Iterations (defaults to 100). With
+     *             "--sweep" first, runs Iterations episodes at every density
+     *             from 0 to 40% instead, followed by optional Seed and Threads,
+     *             see {@link #sweep(int, int, int, long, int)}.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws FileNotFoundException {
+        if (args.length > 0 && args[0].equals("--sweep")) {
+            int x = Integer.parseInt(args[1]);
+            int y = Integer.parseInt(args[2]);
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 520;
+            int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+            sweep(x, y, iterations, seed, threads);
+            return;
+        }
         int x = Integer.parseInt(args[0]);
         int y = Integer.parseInt(args[1]);
         int iterations = args.length > 2 ? Integer.parseInt(args[2]): 100;
@@ -33,17 +49,59 @@ public class Simulator {
         Point end = new Point(xDim-1, yDim-1);
         InferenceAgent agent = new BetterInferenceAgent();
 
+        MazeSampler sampler = new MazeSampler(xDim, yDim, prob);
         ArrayList<GridWorldInfo> results = new ArrayList<>();
         for(int i = 0; i < iterations; i++) {
-            Grid world = getSolvableMaze(xDim, yDim, algo, prob);
+            Grid world = sampler.next();
             printMaze(world);
             Robot rob = new Robot(start, end, agent, world, algo, false);
             results.add(rob.run());
         }
 
+        System.err.println(sampler);
         printResultsToCsv("p2-realagent.csv", results);
     }
 
+    /**
+     * Runs every agent except the perfect inference agent at every density from
+     * 0 to 40% in 1% steps, all in this process on one worker pool. Every
+     * episode goes to p2-sweep-raw.csv and the statistics of every density and
+     * agent to p2-sweep-summary.csv, both written while the sweep runs. Every
+     * episode draws its maze from its own random stream, so apart from the
+     * runtimes the output only depends on the seed.
+     *
+     * @param iterations Episodes per density and agent
+     * @param seed       Seed the mazes are generated from
+     * @param threads    Number of worker threads
+     */
+    public static void sweep(int xDim, int yDim, int iterations, long seed, int threads)
+            throws FileNotFoundException {
+        List<String> agents = List.of("blindfolded", "four_neighbour", "basic_inference", "better_inference");
+        List<Supplier<InferenceAgent>> factories = List.of(BlindfoldedAgent::new, FourNeighbourAgent::new,
+                BasicInferenceAgent::new, BetterInferenceAgent::new);
+        List<SweepRunner.Episode> episodes = new ArrayList<>();
+        for (Supplier<InferenceAgent> factory : factories) {
+            episodes.add((x, y, density, random) -> runEpisode(x, y, density, random, factory.get()));
+        }
+        SweepRunner runner = new SweepRunner("trajectory_length", "cells_processed", "bumps", "plans",
+                "cells_determined", "runtime");
+        try (PrintWriter raw = new PrintWriter(new File("p2-sweep-raw.csv"));
+                PrintWriter summary = new PrintWriter(new File("p2-sweep-summary.csv"))) {
+            runner.run(SweepRunner.densitySweep(xDim, yDim, SWEEP_MIN_DENSITY, SWEEP_MAX_DENSITY, 1, iterations,
+                    agents, episodes), seed, threads, raw, summary);
+        }
+    }
+
+    // agents and searches keep state between calls, so every episode gets its own
+    private static double[] runEpisode(int xDim, int yDim, int prob, SplittableRandom random, InferenceAgent agent) {
+        Grid world = new MazeSampler(xDim, yDim, prob, random).next();
+        Robot rob = new Robot(new Point(0, 0), new Point(xDim - 1, yDim - 1), agent, world,
+                new AStarSearch(Heuristics::manhattanDistance), false);
+        GridWorldInfo info = rob.run();
+        return new double[] { info.trajectoryLength, info.numberOfCellsProcessed, info.numBumps, info.numPlans,
+                info.numCellsDetermined, info.runtime };
+    }
+
     public static void printMaze(Grid world) {
         for(int y = 0; y < world.getYSize(); y++) {
             for(int x = 0; x < world.getXSize(); x++) {
@@ -58,30 +116,6 @@ public class Simulator {
         }
     }
 
-    /**
-     * This method returns a solvable maze for given inputs. It uses a search algo
-     * to make sure there is a path to the end.
-     *
-     * @param xDim Dimension of the Entity.Grid's X coord
-     * @param yDim Dimension of the Entity.Grid's Y coord
-     * @param algo Algorithm to use for searching
-     * @param prob Probability of a space being blocked
-     * @return returns a solvable maze
-     */
-    public static Grid getSolvableMaze(int xDim, int yDim, SearchAlgo algo, int prob) {
-        Point start = new Point(0, 0);
-        Point end = new Point(xDim - 1, yDim - 1);
-        GridWorldInfo completeResult;
-        Grid grid;
-
-        do {
-            grid = new Grid(xDim, yDim, prob);
-            completeResult = algo.search(start, end, grid, cell -> cell.isBlocked());
-        } while (completeResult.path == null);
-
-        return grid;
-    }
-
     /**
      * Takes a list of Entity.GridWorldInfo: {@link GridWorldInfo} and prints it to
      * a pre-designed csv template
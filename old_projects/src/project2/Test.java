@@ -6,6 +6,7 @@ import project2.entity.*;
 import project2.utility.*;
 
 import java.text.DecimalFormat;
+import java.util.SplittableRandom;
 
 // just tests the search algos to make sure they work
 // usage: java Test xSize ySize blockedProbability%
@@ -81,6 +82,47 @@ public class Test {
         System.out.print(ColorConstant.ANSI_RESET);
     }
 
+    /**
+     * Runs the perfect agent with the cardinality solver (infinite depth) and with contradiction testing by
+     * totalSolve at a depth it never reaches on the same seeded world, and checks that both learn the same: equal
+     * statistics and an equal final KB.
+     */
+    public static void checkPerfectAgents(int x, int y, int prob, long seed) {
+        Grid maze = new MazeSampler(x, y, prob, new SplittableRandom(seed)).next();
+        Grid solverKb = new Grid(maze, true);
+        Grid totalSolveKb = new Grid(maze, true);
+        Point start = new Point(0, 0);
+        Point goal = new Point(x - 1, y - 1);
+        GridWorldInfo solverResult = new Robot(start, goal, new PerfectInferenceAgent(-1), solverKb,
+                new AStarSearch(Heuristics::manhattanDistance), false).run();
+        GridWorldInfo totalSolveResult = new Robot(start, goal, new PerfectInferenceAgent(Integer.MAX_VALUE),
+                totalSolveKb, new AStarSearch(Heuristics::manhattanDistance), false).run();
+
+        String expected = stats(totalSolveResult);
+        String actual = stats(solverResult);
+        if (!actual.equals(expected)) {
+            throw new AssertionError("seed " + seed + ": expected " + expected + ", got " + actual);
+        }
+        for (int j = 0; j < y; j++) {
+            for (int i = 0; i < x; i++) {
+                GridCell expectedCell = totalSolveKb.getCell(i, j);
+                GridCell actualCell = solverKb.getCell(i, j);
+                if (actualCell.getBlockSentiment() != expectedCell.getBlockSentiment()
+                        || actualCell.isVisited() != expectedCell.isVisited()) {
+                    throw new AssertionError("seed " + seed + ": KBs differ at " + expectedCell.getLocation());
+                }
+            }
+        }
+        System.out.println("seed " + seed + ": " + actual);
+    }
+
+    // every statistic except the runtime
+    private static String stats(GridWorldInfo result) {
+        return "trajectory length " + result.trajectoryLength + ", " + result.numberOfCellsProcessed
+                + " cells expanded, " + result.numBumps + " bumps, " + result.numPlans + " plans, "
+                + result.numCellsDetermined + " cells determined";
+    }
+
     public static void main(String[] args) {
         int x = Integer.parseInt(args[0]);
         int y = Integer.parseInt(args[1]);
@@ -126,6 +168,12 @@ public class Test {
         GridWorldInfo result3 = robot3.run();
         printResults(result3);
         printWorld(world3);
+        System.out.println();
+
+        System.out.println("Checking the 'Perfect' solver against totalSolve on fixed seeds...");
+        for (long seed = 0; seed < 8; seed++) {
+            checkPerfectAgents(20, 20, 30, seed);
+        }
 
     }
 }
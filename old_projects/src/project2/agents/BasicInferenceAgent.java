@@ -9,6 +9,8 @@ import project2.utility.Sentiment;
  * The example inference agent (Agent 3).
  */
 public class BasicInferenceAgent implements InferenceAgent {
+    private Propagator propagator = new Propagator();
+
     /**
      * Learns about surroundings by applying the example inference agent rules as
      * described in the project document.
@@ -21,6 +23,19 @@ public class BasicInferenceAgent implements InferenceAgent {
         kb.forEachNeighbour(location, nbr -> propagateInferences(kb, nbr.getLocation()));
     }
 
+    /**
+     * Propagates inferences with a work queue instead of recursion, see
+     * {@link Propagator}.
+     */
+    @Override
+    public boolean propagateInferences(Grid kb, Point location) {
+        return propagator.propagate(kb, location);
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
     /**
      * Backup of inefficient implementation of the example inference agent.
      * Used to verify that behaviour is the same.
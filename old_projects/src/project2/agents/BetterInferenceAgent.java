@@ -13,6 +13,7 @@ import project2.utility.Sentiment;
  */
 public class BetterInferenceAgent implements InferenceAgent {
     BasicInferenceAgent deterministicAgent;
+    private Propagator propagator = new Propagator();
     private static final Sentiment[] list = { Sentiment.Blocked, Sentiment.Free };
 
     public BetterInferenceAgent() {
@@ -34,13 +35,7 @@ public class BetterInferenceAgent implements InferenceAgent {
             done = true;
 
             // get collection of relevant cells to test
-            for (int y = 0; y < kb.getYSize(); y++) {
-                for (int x = 0; x < kb.getXSize(); x++) {
-                    GridCell cell = kb.getCell(x, y);
-                    if (cell.isVisited() && cell.getNumAdjHidden() > 0)
-                        openCells.add(cell);
-                }
-            }
+            openCells.addAll(kb.getFrontier());
 
             // perform contradiction testing on neighbours of each open cell
             while (!openCells.isEmpty()) {
@@ -53,9 +48,10 @@ public class BetterInferenceAgent implements InferenceAgent {
 
                     // test if setting nbr to each status yields a contradiction
                     for (int i = 0; i < list.length; i++) {
-                        Grid copy = new Grid(kb, false); // make shallow copy so original grid isn't mangled up
-                        copy.setSentiment(adj, list[i]);
-                        boolean status = propagateInferences(copy, adj);
+                        int checkpoint = kb.checkpoint(); // test on kb itself and undo the test afterwards
+                        kb.setSentiment(adj, list[i]);
+                        boolean status = propagateInferences(kb, adj);
+                        kb.rollback(checkpoint);
                         if (status == false) { // contradiction found -> nbr is the other option
                             done = false;
                             kb.setSentiment(adj, list[(i + 1) % 2]);
@@ -69,4 +65,17 @@ public class BetterInferenceAgent implements InferenceAgent {
             }
         }
     }
+
+    /**
+     * Propagates inferences with a work queue instead of recursion, see
+     * {@link Propagator}.
+     */
+    @Override
+    public boolean propagateInferences(Grid kb, Point location) {
+        return propagator.propagate(kb, location);
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
 }
\ No newline at end of file
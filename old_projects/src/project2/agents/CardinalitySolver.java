@@ -0,0 +1,427 @@
+package project2.agents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A conflict-driven clause learning (CDCL) satisfiability solver whose
+ * constraints are cardinalities, e.g. "exactly 3 of these cells are blocked",
+ * which is what a visited cell says about its neighbours. Encoding such a
+ * constraint as clauses takes a number of clauses that grows combinatorially
+ * with the number of neighbours, so it is kept as two native "at most k of
+ * these literals are true" constraints instead. Learned clauses are stored the
+ * same way, a clause of m literals being "at most m - 1 of their negations are
+ * true".
+ * <p>
+ * Every constraint keeps a counter of its true literals, updated as literals
+ * are assigned and unassigned; once it reaches k the remaining literals are
+ * forced false, and past k the constraint is in conflict. Reasons for forced
+ * literals are worked out from the counters only when conflict analysis asks
+ * for them. Conflicts are analysed to the first unique implication point, the
+ * learned clause decides how far to backjump, and variables are picked by
+ * VSIDS activity with saved phases.
+ * <p>
+ * A literal is {@code 2 * var} for "var is true" and {@code 2 * var + 1} for
+ * "var is false", see {@link #literal(int, boolean)}.
+ */
+public class CardinalitySolver {
+    private static final double ACTIVITY_DECAY = 0.95;
+
+    // constraints: at most bound[c] of literals[c] are true
+    private List<int[]> literals = new ArrayList<>();
+    private int[] bound = new int[16];
+    private int[] count = new int[16]; // true literals of the constraint among the propagated ones
+    private int numConstraints;
+    private List<int[]> occurrences = new ArrayList<>(); // per literal, the constraints containing it
+    private int[] numOccurrences = new int[0];
+
+    // assignment
+    private int numVariables;
+    private byte[] value = new byte[0]; // per variable: 1 true, -1 false, 0 unassigned
+    private int[] level = new int[0];
+    private int[] reason = new int[0]; // constraint that forced the variable, -1 for decisions
+    private int[] trailPosition = new int[0];
+    private boolean[] phase = new boolean[0]; // last value of every variable, tried first when deciding
+    private int[] trail = new int[0];
+    private int trailSize;
+    private int propagated; // trail entries up to here have been counted in the constraints
+    private int[] levelStart = new int[1]; // trail size when each decision level was entered
+    private int decisionLevel;
+    private boolean unsatisfiable;
+    private boolean[] model = new boolean[0];
+
+    // VSIDS
+    private double[] activity = new double[0];
+    private double activityIncrement = 1;
+    private int[] heap = new int[0]; // max-heap of variables by activity
+    private int[] heapIndex = new int[0]; // -1 if not in the heap
+    private int heapSize;
+
+    // analysis scratch
+    private boolean[] seen = new boolean[0];
+
+    private long numConflicts;
+    private long numDecisions;
+    private long numPropagations;
+
+    public static int literal(int var, boolean value) {
+        return value ? 2 * var : 2 * var + 1;
+    }
+
+    /**
+     * @return A new variable, unconstrained until it is used in a constraint
+     */
+    public int newVariable() {
+        int var = numVariables++;
+        if (var == value.length) {
+            int capacity = Math.max(16, 2 * value.length);
+            value = Arrays.copyOf(value, capacity);
+            level = Arrays.copyOf(level, capacity);
+            reason = Arrays.copyOf(reason, capacity);
+            trailPosition = Arrays.copyOf(trailPosition, capacity);
+            phase = Arrays.copyOf(phase, capacity);
+            trail = Arrays.copyOf(trail, capacity);
+            model = Arrays.copyOf(model, capacity);
+            activity = Arrays.copyOf(activity, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+            heapIndex = Arrays.copyOf(heapIndex, capacity);
+            seen = Arrays.copyOf(seen, capacity);
+            numOccurrences = Arrays.copyOf(numOccurrences, 2 * capacity);
+        }
+        reason[var] = -1;
+        heapIndex[var] = -1;
+        occurrences.add(new int[2]);
+        occurrences.add(new int[2]);
+        heapInsert(var);
+        return var;
+    }
+
+    public int getNumVariables() {
+        return numVariables;
+    }
+
+    /**
+     * Requires exactly k of the variables to be true. Constraints can be added
+     * before and between calls to {@link #solve(int...)}.
+     *
+     * @param vars Distinct variables
+     * @param k    Number of them that must be true
+     */
+    public void addExactly(int[] vars, int k) {
+        int[] positive = new int[vars.length];
+        int[] negative = new int[vars.length];
+        for (int i = 0; i < vars.length; i++) {
+            positive[i] = literal(vars[i], true);
+            negative[i] = literal(vars[i], false);
+        }
+        addAtMost(positive, k);
+        addAtMost(negative, vars.length - k);
+    }
+
+    /**
+     * Searches for an assignment satisfying every constraint and the
+     * assumptions. Clauses learned along the way only depend on the
+     * constraints, so they are kept for later calls.
+     *
+     * @param assumptions Literals that must hold for this call only
+     * @return Whether there is such an assignment; if so it can be read with
+     *         {@link #getModelValue(int)}
+     */
+    public boolean solve(int... assumptions) {
+        if (unsatisfiable)
+            return false;
+        while (true) {
+            int conflict = propagate();
+            if (conflict != -1) {
+                numConflicts++;
+                if (decisionLevel == 0) {
+                    unsatisfiable = true;
+                    return false;
+                }
+                int[] learned = analyze(conflict);
+                int backjumpLevel = 0;
+                for (int i = 1; i < learned.length; i++)
+                    backjumpLevel = Math.max(backjumpLevel, level[learned[i] >> 1]);
+                backtrack(backjumpLevel);
+                addAtMost(learned, learned.length - 1); // learned[0] is forced false here
+                decayActivities();
+                continue;
+            }
+
+            int next;
+            if (decisionLevel < assumptions.length) { // assumptions are the first decisions
+                int assumption = assumptions[decisionLevel];
+                int v = valueOf(assumption);
+                if (v < 0) { // already refuted by the constraints and the earlier assumptions
+                    backtrack(0);
+                    return false;
+                }
+                next = v > 0 ? -1 : assumption;
+            } else {
+                int var = pickBranchVariable();
+                if (var == -1) { // every variable is assigned without conflict
+                    for (int i = 0; i < numVariables; i++)
+                        model[i] = value[i] > 0;
+                    backtrack(0);
+                    return true;
+                }
+                numDecisions++;
+                next = literal(var, phase[var]);
+            }
+            if (decisionLevel + 1 == levelStart.length)
+                levelStart = Arrays.copyOf(levelStart, 2 * levelStart.length);
+            levelStart[++decisionLevel] = trailSize;
+            if (next != -1)
+                assign(next, -1);
+        }
+    }
+
+    /**
+     * @return The value of a variable in the assignment found by the last
+     *         successful {@link #solve(int...)}
+     */
+    public boolean getModelValue(int var) {
+        return model[var];
+    }
+
+    public long getNumConflicts() {
+        return numConflicts;
+    }
+
+    public long getNumDecisions() {
+        return numDecisions;
+    }
+
+    public long getNumPropagations() {
+        return numPropagations;
+    }
+
+    // adds "at most k of lits are true" at the current level, forcing literals if the bound is already reached
+    private void addAtMost(int[] lits, int k) {
+        if (k < 0) {
+            unsatisfiable = true;
+            return;
+        }
+        if (k >= lits.length)
+            return; // always satisfied
+        int c = numConstraints++;
+        if (c == bound.length) {
+            bound = Arrays.copyOf(bound, 2 * c);
+            count = Arrays.copyOf(count, 2 * c);
+        }
+        literals.add(lits);
+        bound[c] = k;
+        count[c] = 0;
+        for (int lit : lits) {
+            int n = numOccurrences[lit]++;
+            int[] list = occurrences.get(lit);
+            if (n == list.length)
+                occurrences.set(lit, list = Arrays.copyOf(list, 2 * n));
+            list[n] = c;
+            if (valueOf(lit) > 0 && trailPosition[lit >> 1] < propagated)
+                count[c]++;
+        }
+        if (count[c] > k) {
+            unsatisfiable = true;
+        } else if (count[c] == k) {
+            for (int lit : lits) {
+                if (valueOf(lit) == 0)
+                    assign(lit ^ 1, c);
+            }
+        }
+    }
+
+    private int valueOf(int lit) {
+        int v = value[lit >> 1];
+        return (lit & 1) == 0 ? v : -v;
+    }
+
+    private void assign(int lit, int because) {
+        int var = lit >> 1;
+        value[var] = (byte) ((lit & 1) == 0 ? 1 : -1);
+        level[var] = decisionLevel;
+        reason[var] = because;
+        trailPosition[var] = trailSize;
+        trail[trailSize++] = lit;
+    }
+
+    // counts newly assigned literals in their constraints; returns a constraint in conflict, or -1
+    private int propagate() {
+        int conflict = -1;
+        while (propagated < trailSize && conflict == -1) {
+            int lit = trail[propagated++];
+            int[] list = occurrences.get(lit);
+            for (int i = 0; i < numOccurrences[lit]; i++) { // count every constraint, even after a conflict
+                int c = list[i];
+                count[c]++;
+                if (conflict != -1)
+                    continue;
+                if (count[c] > bound[c]) {
+                    conflict = c;
+                } else if (count[c] == bound[c]) {
+                    for (int other : literals.get(c)) {
+                        if (valueOf(other) == 0) {
+                            assign(other ^ 1, c);
+                            numPropagations++;
+                        }
+                    }
+                }
+            }
+        }
+        return conflict;
+    }
+
+    /**
+     * Works out the literals that made a constraint force a literal: its true
+     * literals that were assigned before. At least bound of them are, and any
+     * bound of them suffice.
+     */
+    private List<Integer> explain(int c, int forcedPosition, List<Integer> out) {
+        out.clear();
+        for (int lit : literals.get(c)) {
+            if (valueOf(lit) > 0 && trailPosition[lit >> 1] < forcedPosition)
+                out.add(lit);
+        }
+        return out;
+    }
+
+    /**
+     * Derives a clause from a conflict by resolving with the reasons of the
+     * current level's literals until one is left (the first unique implication
+     * point). The clause is returned as the true literals whose conjunction it
+     * rules out, the implication point first.
+     */
+    private int[] analyze(int conflict) {
+        List<Integer> antecedents = explain(conflict, propagated, new ArrayList<>());
+        List<Integer> learned = new ArrayList<>();
+        learned.add(-1); // room for the implication point
+        int pending = 0;
+        int index = trailSize - 1;
+        int lit = -1;
+        while (true) {
+            for (int a : antecedents) {
+                int var = a >> 1;
+                if (seen[var] || level[var] == 0)
+                    continue;
+                seen[var] = true;
+                bumpActivity(var);
+                if (level[var] == decisionLevel) {
+                    pending++;
+                } else {
+                    learned.add(a);
+                }
+            }
+            while (!seen[trail[index] >> 1])
+                index--;
+            lit = trail[index--];
+            seen[lit >> 1] = false;
+            if (--pending == 0)
+                break;
+            explain(reason[lit >> 1], trailPosition[lit >> 1], antecedents);
+        }
+        learned.set(0, lit);
+        int[] result = new int[learned.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = learned.get(i);
+            seen[result[i] >> 1] = false;
+        }
+        return result;
+    }
+
+    private void backtrack(int targetLevel) {
+        if (decisionLevel <= targetLevel)
+            return;
+        int start = levelStart[targetLevel + 1];
+        for (int i = trailSize - 1; i >= start; i--) {
+            int lit = trail[i];
+            int var = lit >> 1;
+            if (i < propagated) {
+                int[] list = occurrences.get(lit);
+                for (int j = 0; j < numOccurrences[lit]; j++)
+                    count[list[j]]--;
+            }
+            value[var] = 0;
+            reason[var] = -1;
+            phase[var] = (lit & 1) == 0;
+            if (heapIndex[var] == -1)
+                heapInsert(var);
+        }
+        trailSize = start;
+        propagated = Math.min(propagated, trailSize);
+        decisionLevel = targetLevel;
+    }
+
+    private int pickBranchVariable() {
+        while (heapSize > 0) {
+            int var = heapRemoveMax();
+            if (value[var] == 0)
+                return var;
+        }
+        return -1;
+    }
+
+    private void bumpActivity(int var) {
+        activity[var] += activityIncrement;
+        if (activity[var] > 1e100) { // rescale before overflowing
+            for (int i = 0; i < numVariables; i++)
+                activity[i] *= 1e-100;
+            activityIncrement *= 1e-100;
+        }
+        if (heapIndex[var] != -1)
+            siftUp(heapIndex[var]);
+    }
+
+    private void decayActivities() {
+        activityIncrement /= ACTIVITY_DECAY;
+    }
+
+    private void heapInsert(int var) {
+        heap[heapSize] = var;
+        heapIndex[var] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int heapRemoveMax() {
+        int max = heap[0];
+        heapIndex[max] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return max;
+    }
+
+    private void siftUp(int i) {
+        int var = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (activity[heap[parent]] >= activity[var])
+                break;
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = var;
+        heapIndex[var] = i;
+    }
+
+    private void siftDown(int i) {
+        int var = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]])
+                child++;
+            if (activity[heap[child]] <= activity[var])
+                break;
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = var;
+        heapIndex[var] = i;
+    }
+}
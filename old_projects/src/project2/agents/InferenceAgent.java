@@ -21,7 +21,9 @@ public interface InferenceAgent {
 
     /**
      * Propagates inferences using rules of the Example Inference Agent, while
-     * checking for contradictions.
+     * checking for contradictions. Recurses once per inferred cell; the
+     * inference agents use a {@link Propagator} instead, this is kept to verify
+     * that it behaves the same.
      *
      * @param kb       The knowledge base (will be mutated by this function)
      * @param location The location where a sentiment was changed
@@ -1,6 +1,13 @@
 package project2.agents;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import project2.entity.*;
 import project2.utility.*;
@@ -13,6 +20,7 @@ import java.util.ArrayDeque;
 public class PerfectInferenceAgent implements InferenceAgent {
     private BasicInferenceAgent deterministicAgent;
     private int depth;
+    private Propagator propagator = new Propagator();
     private static final Sentiment[] list = { Sentiment.Blocked, Sentiment.Free };
 
     /**
@@ -35,12 +43,21 @@ public class PerfectInferenceAgent implements InferenceAgent {
 
     /**
      * Learns about surroundings by applying contradiction testing using a
-     * SAT-checker.
+     * SAT-checker. At infinite depth every cell that has the same status in all
+     * assignments satisfying the KB is inferred, using a
+     * {@link CardinalitySolver} per independent part of the frontier, solved in
+     * parallel. Otherwise the neighbours of the whole frontier are tested one
+     * at a time on the calling thread, by a backtracking search of limited
+     * depth, see {@link #totalSolve(Grid, int)}.
      */
     @Override
     public void learn(Grid kb, Point location) {
         // first make all the deterministic inferences possible
         deterministicAgent.learn(kb, location);
+        if (depth < 0) {
+            inferForcedCells(kb);
+            return;
+        }
 
         // do satisfiability testing to find further inferences
         Queue<GridCell> openCells = new ArrayDeque<>(); // queue to hold relevant cells
@@ -49,13 +66,7 @@ public class PerfectInferenceAgent implements InferenceAgent {
             done = true;
 
             // get collection of relevant cells to test
-            for (int y = 0; y < kb.getYSize(); y++) {
-                for (int x = 0; x < kb.getXSize(); x++) {
-                    GridCell cell = kb.getCell(x, y);
-                    if (cell.isVisited() && cell.getNumAdjHidden() > 0)
-                        openCells.add(cell);
-                }
-            }
+            openCells.addAll(kb.getFrontier());
 
             // perform contradiction testing on neighbours of each open cell
             while (!openCells.isEmpty()) {
@@ -68,9 +79,10 @@ public class PerfectInferenceAgent implements InferenceAgent {
 
                     // test if setting nbr to each status yields a contradiction
                     for (int i = 0; i < list.length; i++) {
-                        Grid copy = new Grid(kb, false); // make shallow copy so original grid isn't mangled up
-                        copy.setSentiment(adj, list[i]);
-                        boolean status = propagateInferences(copy, adj) && totalSolve(copy, depth); // use short-circuiting
+                        int checkpoint = kb.checkpoint(); // test on kb itself and undo the test afterwards
+                        kb.setSentiment(adj, list[i]);
+                        boolean status = propagateInferences(kb, adj) && totalSolve(kb, depth); // use short-circuiting
+                        kb.rollback(checkpoint);
                         if (status == false) { // contradiction found -> nbr is the other option
                             done = false;
                             kb.setSentiment(adj, list[(i + 1) % 2]);
@@ -86,11 +98,146 @@ public class PerfectInferenceAgent implements InferenceAgent {
 
     }
 
+    /**
+     * Infers every unsure cell next to an open cell that has the same status
+     * in all assignments satisfying the open cells' constraints (the visited
+     * cell sees exactly C_x blocked neighbours). These are exactly the cells
+     * contradiction testing with an unlimited {@link #totalSolve(Grid, int)}
+     * would find: a cell can be inferred iff assuming the other status is
+     * unsatisfiable.
+     * <p>
+     * Cells only interact through the constraints they share, so the unsure
+     * cells are split into connected components, each of which is solved as a
+     * separate {@link ForkJoinTask} on its own small problem. The KB is only
+     * read and updated on the calling thread.
+     * 
+     * @param kb The knowledge base (will be updated with what was learned)
+     */
+    private void inferForcedCells(Grid kb) {
+        Map<Integer, Integer> variables = new HashMap<>(); // by cell index
+        List<Point> cells = new ArrayList<>(); // by variable
+        List<int[]> constraints = new ArrayList<>();
+        List<Integer> numBlocked = new ArrayList<>();
+        for (GridCell open : kb.getFrontier()) {
+            List<Integer> vars = new ArrayList<>();
+            for (Point adj : open.getLocation().get8Neighbours()) {
+                GridCell nbr = kb.getCell(adj);
+                if (nbr == null || nbr.getBlockSentiment() != Sentiment.Unsure)
+                    continue;
+                vars.add(variables.computeIfAbsent(adj.f2 * kb.getXSize() + adj.f1, index -> {
+                    cells.add(adj);
+                    return cells.size() - 1;
+                }));
+            }
+            constraints.add(vars.stream().mapToInt(Integer::intValue).toArray());
+            numBlocked.add(open.getNumSensedBlocked() - open.getNumAdjBlocked());
+        }
+
+        // union the variables of every constraint, then number each component's variables from 0
+        int[] parent = new int[cells.size()];
+        for (int var = 0; var < parent.length; var++)
+            parent[var] = var;
+        for (int[] constraint : constraints) {
+            for (int i = 1; i < constraint.length; i++)
+                parent[find(parent, constraint[i])] = find(parent, constraint[0]);
+        }
+        Map<Integer, Component> components = new LinkedHashMap<>(); // by root, in order of first variable
+        int[] local = new int[cells.size()];
+        for (int var = 0; var < parent.length; var++) {
+            Component component = components.computeIfAbsent(find(parent, var), root -> new Component());
+            local[var] = component.variables.size();
+            component.variables.add(var);
+        }
+        for (int c = 0; c < constraints.size(); c++) {
+            int[] vars = constraints.get(c);
+            if (vars.length == 0)
+                continue;
+            int[] localVars = new int[vars.length];
+            for (int i = 0; i < vars.length; i++)
+                localVars[i] = local[vars[i]];
+            Component component = components.get(find(parent, vars[0]));
+            component.constraints.add(localVars);
+            component.numBlocked.add(numBlocked.get(c));
+        }
+
+        // solve all components in parallel, then record what they forced
+        ForkJoinTask.invokeAll(components.values());
+        for (Component component : components.values()) {
+            byte[] forced = component.join();
+            if (forced == null)
+                continue; // the KB contradicts itself, which the real gridworld can't
+            for (int var = 0; var < forced.length; var++) {
+                Point adj = cells.get(component.variables.get(var));
+                if (forced[var] == 0 || kb.getCell(adj).getBlockSentiment() != Sentiment.Unsure)
+                    continue; // not forced, or already inferred by propagating an earlier one
+                kb.setSentiment(adj, forced[var] > 0 ? Sentiment.Blocked : Sentiment.Free);
+                propagateInferences(kb, adj);
+            }
+        }
+    }
+
+    private static int find(int[] parent, int var) {
+        while (parent[var] != var) {
+            parent[var] = parent[parent[var]]; // path halving
+            var = parent[var];
+        }
+        return var;
+    }
+
+    /**
+     * Unsure cells sharing constraints only with each other. Computes which of
+     * them are forced: 1 blocked, -1 free, 0 either, or null if the
+     * constraints can't be satisfied at all.
+     */
+    private static class Component extends RecursiveTask<byte[]> {
+        private static final long serialVersionUID = 1L;
+
+        private List<Integer> variables = new ArrayList<>(); // global variable of every local one
+        private List<int[]> constraints = new ArrayList<>(); // local variables of every constraint
+        private List<Integer> numBlocked = new ArrayList<>(); // how many of them are blocked
+
+        @Override
+        protected byte[] compute() {
+            CardinalitySolver solver = new CardinalitySolver();
+            for (int i = 0; i < variables.size(); i++)
+                solver.newVariable();
+            for (int c = 0; c < constraints.size(); c++)
+                solver.addExactly(constraints.get(c), numBlocked.get(c));
+            if (!solver.solve())
+                return null;
+
+            // a cell can only be forced to its value in the first solution
+            int numVariables = variables.size();
+            boolean[] first = new boolean[numVariables];
+            boolean[] candidate = new boolean[numVariables];
+            for (int var = 0; var < numVariables; var++) {
+                first[var] = solver.getModelValue(var);
+                candidate[var] = true;
+            }
+            byte[] forced = new byte[numVariables];
+            for (int var = 0; var < numVariables; var++) {
+                if (!candidate[var])
+                    continue;
+                if (solver.solve(CardinalitySolver.literal(var, !first[var]))) {
+                    for (int other = var + 1; other < numVariables; other++) { // also not forced if they changed
+                        if (solver.getModelValue(other) != first[other])
+                            candidate[other] = false;
+                    }
+                } else { // forced: record it, which also speeds up the remaining tests
+                    solver.addExactly(new int[] { var }, first[var] ? 1 : 0);
+                    forced[var] = (byte) (first[var] ? 1 : -1);
+                }
+            }
+            return forced;
+        }
+    }
+
     /**
      * A satisfiability checker for the gridworld. Attempts to find an assignment
      * satisfying the constraints. Modifies the original board with cell statuses
      * that are inferred/assigned along the way;
-     * <strong>do not rely on the state of kb after calling this function.</strong>
+     * <strong>do not rely on the state of kb after calling this function</strong>,
+     * call it inside a {@link Grid#checkpoint()} to undo the changes.
      * 
      * @param kb    The current state of the knowledge base
      * @param depth How many levels deep to run the checker
@@ -103,16 +250,7 @@ public class PerfectInferenceAgent implements InferenceAgent {
         }
 
         // find a relevant cell to test
-        GridCell openCell = null;
-        for (int y = 0; y < kb.getYSize(); y++) {
-            for (int x = 0; x < kb.getXSize(); x++) {
-                GridCell cell = kb.getCell(x, y);
-                if (cell.isVisited() && cell.getNumAdjHidden() > 0) {
-                    openCell = cell;
-                    break;
-                }
-            }
-        }
+        GridCell openCell = kb.getFrontierCell();
 
         if (openCell == null) {
             return true; // no open cells -> partial assignment already found
@@ -128,9 +266,10 @@ public class PerfectInferenceAgent implements InferenceAgent {
         Point adj = nbr.getLocation();
 
         // attempt to solve setting nbr -> blocked
-        Grid copy = new Grid(kb, false);
-        copy.setSentiment(adj, Sentiment.Blocked);
-        boolean status = propagateInferences(copy, adj) && totalSolve(copy, depth - 1); // use short-circuiting
+        int checkpoint = kb.checkpoint();
+        kb.setSentiment(adj, Sentiment.Blocked);
+        boolean status = propagateInferences(kb, adj) && totalSolve(kb, depth - 1); // use short-circuiting
+        kb.rollback(checkpoint);
         if (status == true) { // found a valid partial assignment
             return true;
         }
@@ -144,4 +283,17 @@ public class PerfectInferenceAgent implements InferenceAgent {
 
         return false; // kb is not satisfiable
     }
+
+    /**
+     * Propagates inferences with a work queue instead of recursion, see
+     * {@link Propagator}.
+     */
+    @Override
+    public boolean propagateInferences(Grid kb, Point location) {
+        return propagator.propagate(kb, location);
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
 }
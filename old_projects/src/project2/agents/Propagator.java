@@ -0,0 +1,131 @@
+package project2.agents;
+
+import project2.entity.Grid;
+import project2.entity.GridCell;
+import project2.utility.Point;
+import project2.utility.Sentiment;
+
+/**
+ * Applies the rules of the example inference agent until nothing more can be
+ * inferred, like {@link InferenceAgent#propagateInferences(Grid, Point)} but
+ * with an explicit work queue instead of recursion. The queue holds the
+ * visited cells whose neighbour counts changed; a cell that is already queued
+ * is not queued again, since it will see the latest counts when it is checked.
+ * The rules only ever add knowledge and two rules that disagree about a cell
+ * always leave one of them contradicted, so the order in which cells are
+ * checked does not change the result: both find the same inferences and the
+ * same contradictions.
+ * <p>
+ * The queue is a ring buffer of cell indices with one in-queue bit per cell,
+ * reused between calls. Not thread safe; every agent has its own.
+ */
+public class Propagator {
+    private static final int[] DX = { 1, 1, 0, -1, -1, -1, 0, 1 }; // same order as Point.get8Neighbours()
+    private static final int[] DY = { 0, 1, 1, 1, 0, -1, -1, -1 };
+
+    private int[] queue = new int[0];
+    private long[] inQueue = new long[0];
+    private int head;
+    private int size;
+    private int numPropagations;
+    private int numContradictions;
+
+    /**
+     * Checks the visited neighbours of a changed cell and propagates
+     * everything that follows from them.
+     *
+     * @param kb       The knowledge base (will be mutated by this function)
+     * @param location The location where a sentiment was changed
+     * @return Returns false if an inconsistency was found, true otherwise
+     */
+    public boolean propagate(Grid kb, Point location) {
+        int numCells = kb.getXSize() * kb.getYSize();
+        if (queue.length < numCells) { // every cell is queued at most once, so this never overflows
+            queue = new int[numCells];
+            inQueue = new long[(numCells + 63) >>> 6];
+            head = 0;
+        }
+        numPropagations = 0;
+        numContradictions = 0;
+
+        enqueueNeighbours(kb, location.f1, location.f2);
+        while (size > 0) {
+            int index = queue[head];
+            head = head + 1 == queue.length ? 0 : head + 1;
+            size--;
+            inQueue[index >>> 6] &= ~(1L << index);
+            int x = index % kb.getXSize();
+            int y = index / kb.getXSize();
+            GridCell cell = kb.getCell(x, y);
+
+            // first check for contradictions
+            if (cell.getNumAdjBlocked() > cell.getNumSensedBlocked()
+                    || cell.getNumAdjEmpty() > cell.getNumSensedEmpty()) {
+                numContradictions++;
+                clear();
+                return false;
+            }
+            // shortcut check to see if nothing can be inferred
+            if (cell.getNumAdjHidden() == 0)
+                continue;
+            // check each condition
+            Sentiment inferred;
+            if (cell.getNumAdjBlocked() == cell.getNumSensedBlocked()) { // C_x = B_x
+                inferred = Sentiment.Free;
+            } else if (cell.getNumAdjEmpty() == cell.getNumSensedEmpty()) { // N_x - C_x = E_x
+                inferred = Sentiment.Blocked;
+            } else {
+                continue;
+            }
+            for (int d = 0; d < DX.length; d++) {
+                GridCell nbr = kb.getCell(x + DX[d], y + DY[d]);
+                if (nbr != null && nbr.getBlockSentiment() == Sentiment.Unsure) {
+                    kb.setSentiment(new Point(x + DX[d], y + DY[d]), inferred);
+                    numPropagations++;
+                    enqueueNeighbours(kb, x + DX[d], y + DY[d]);
+                }
+            }
+        }
+        return true; // no inconsistencies detected
+    }
+
+    /**
+     * @return The number of cells whose status the last call inferred
+     */
+    public int getNumPropagations() {
+        return numPropagations;
+    }
+
+    /**
+     * @return The number of contradictions the last call found, 0 or 1 since
+     *         propagation stops at the first one
+     */
+    public int getNumContradictions() {
+        return numContradictions;
+    }
+
+    // queues the visited neighbours of (x, y), i.e. the cells whose rules its change may trigger
+    private void enqueueNeighbours(Grid kb, int x, int y) {
+        for (int d = 0; d < DX.length; d++) {
+            GridCell nbr = kb.getCell(x + DX[d], y + DY[d]);
+            if (nbr == null || !nbr.isVisited())
+                continue;
+            int index = (y + DY[d]) * kb.getXSize() + x + DX[d];
+            if ((inQueue[index >>> 6] & (1L << index)) != 0)
+                continue;
+            inQueue[index >>> 6] |= 1L << index;
+            int tail = head + size < queue.length ? head + size : head + size - queue.length;
+            queue[tail] = index;
+            size++;
+        }
+    }
+
+    // empties the queue after a contradiction, leaving the bits clear for the next call
+    private void clear() {
+        for (; size > 0; size--) {
+            int index = queue[head];
+            inQueue[index >>> 6] &= ~(1L << index);
+            head = head + 1 == queue.length ? 0 : head + 1;
+        }
+    }
+}
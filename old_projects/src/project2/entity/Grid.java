@@ -1,7 +1,11 @@
 package project2.entity;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
 import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
 
 import project2.utility.Point;
 import project2.utility.Sentiment;
@@ -11,9 +15,17 @@ import project2.utility.Sentiment;
  * base.
  */
 public class Grid {
+    private static final Sentiment[] SENTIMENTS = Sentiment.values();
+
     private GridCell[] grid; // represent as flat array to make deep-copying easier
     private int xSize;
     private int ySize;
+    private int[] trail = new int[16]; // sentiment changes since the oldest open checkpoint, (index << 2) | old sentiment
+    private int trailSize;
+    private int openCheckpoints;
+    private int[] frontier; // indices of the open cells: visited and with hidden neighbours, in no particular order
+    private int[] frontierSlot; // position of every cell in frontier, -1 if it is not open
+    private int frontierSize;
 
     /**
      * Constructs the grid with the specified parameters.
@@ -25,7 +37,44 @@ public class Grid {
     public Grid(int xSize, int ySize, int probability) {
         this.xSize = xSize;
         this.ySize = ySize;
-        this.grid = generateGrid(xSize, ySize, probability);
+        this.grid = generateGrid(xSize, ySize, generateBlocked(xSize, ySize, probability, Math::random));
+        initFrontier();
+    }
+
+    /**
+     * Generates a grid from the given random stream instead of the shared
+     * {@link Math#random()} generator, so that grids are reproducible.
+     * 
+     * @param xSize       Width of grid
+     * @param ySize       Height of grid
+     * @param probability Density of obstacles
+     * @param random      Random stream used to place the obstacles
+     */
+    public Grid(int xSize, int ySize, int probability, SplittableRandom random) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.grid = generateGrid(xSize, ySize, generateBlocked(xSize, ySize, probability, random::nextDouble));
+        initFrontier();
+    }
+
+    /**
+     * Constructs the grid from an already generated bitset, e.g. a candidate
+     * accepted by {@link project2.entity.MazeSampler}.
+     * 
+     * @param xSize   Width of grid
+     * @param ySize   Height of grid
+     * @param blocked Bit (y * xSize + x) is set if the cell is blocked
+     * @throws IllegalArgumentException If blocked does not have exactly one bit
+     *                                  per cell, rounded up to whole words
+     */
+    public Grid(int xSize, int ySize, long[] blocked) {
+        int numWords = (xSize * ySize + 63) >>> 6;
+        if (blocked.length != numWords)
+            throw new IllegalArgumentException("expected " + numWords + " words, got " + blocked.length);
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.grid = generateGrid(xSize, ySize, blocked);
+        initFrontier();
     }
 
     /**
@@ -42,19 +91,42 @@ public class Grid {
         if (deep) {
             for (int i = 0; i < grid.length; i++) {
                 this.grid[i] = (GridCell) other.grid[i].clone();
+                this.grid[i].setOwner(this);
             }
         }
+        this.frontier = other.frontier.clone();
+        this.frontierSlot = other.frontierSlot.clone();
+        this.frontierSize = other.frontierSize;
+    }
+
+    private void initFrontier() {
+        frontier = new int[grid.length];
+        frontierSlot = new int[grid.length];
+        Arrays.fill(frontierSlot, -1);
+        for (GridCell cell : grid) {
+            updateFrontier(cell);
+        }
     }
 
-    private boolean generateIsBlocked(int probabilityOfBlocked) {
-        return Math.random() * 100 < probabilityOfBlocked;
+    private static boolean generateIsBlocked(int probabilityOfBlocked, DoubleSupplier random) {
+        return random.getAsDouble() * 100 < probabilityOfBlocked;
     }
 
     private boolean inBounds(int x, int y) {
         return x >= 0 && y >= 0 && x < xSize && y < ySize;
     }
 
-    private GridCell[] generateGrid(int dimX, int dimY, int probabilityOfBlocked) {
+    static long[] generateBlocked(int dimX, int dimY, int probabilityOfBlocked, DoubleSupplier random) {
+        long[] blocked = new long[(dimX * dimY + 63) >>> 6];
+        for (int index = 1; index < dimX * dimY - 1; index++) { // start and goal are never blocked
+            if (generateIsBlocked(probabilityOfBlocked, random)) {
+                blocked[index >>> 6] |= 1L << index;
+            }
+        }
+        return blocked;
+    }
+
+    private GridCell[] generateGrid(int dimX, int dimY, long[] blocked) {
         GridCell[] grid = new GridCell[dimX * dimY];
 
         for (int y = 0; y < dimY; y++) {
@@ -67,9 +139,7 @@ public class Grid {
                         numAdj++;
                 }
 
-                // determine if cell is blocked
-                boolean isBlocked = (index == 0 || index == dimX * dimY - 1) ? false
-                        : generateIsBlocked(probabilityOfBlocked);
+                boolean isBlocked = (blocked[index >>> 6] & (1L << index)) != 0;
 
                 grid[index] = new GridCell(x, y, numAdj, isBlocked, this);
             }
@@ -125,13 +195,17 @@ public class Grid {
      * @return The GridCell instance
      */
     public GridCell setCell(Point coord) {
-        GridCell cell = getCell(coord);
+        return setCell(coord.f1, coord.f2);
+    }
+
+    private GridCell setCell(int x, int y) {
+        GridCell cell = getCell(x, y);
         if (cell != null && cell.getOwner() != this) { // the cell belongs to a different grid
             GridCell copy = cell.clone(); // clone it to avoid mangling the other grid
             copy.setOwner(this); // make this grid the new owner
-            grid[coord.f2 * getXSize() + coord.f1] = copy;
+            grid[y * getXSize() + x] = copy;
         }
-        return getCell(coord);
+        return getCell(x, y);
     }
 
     public GridCell[] getGrid() {
@@ -148,38 +222,141 @@ public class Grid {
 
     /**
      * Confirms an unknown cell as blocked/empty and updates KB accordingly.
+     * While a checkpoint is open the change is recorded, so that
+     * {@link #rollback(int)} can undo it.
      * 
      * @param coord The location of the cell
      * @param sent  The confirmed status of that cell
      */
     public void setSentiment(Point coord, Sentiment sent) {
-        if (getCell(coord).getBlockSentiment() == sent)
+        Sentiment old = getCell(coord).getBlockSentiment();
+        if (old == sent)
             return; // shortcut check
-        GridCell cell = setCell(coord);
-
-        // first reset current cell's sentiment if already set
-        switch (cell.getBlockSentiment()) {
-            case Free:
-                forEachNeighbour(coord, nbr -> nbr.addNumAdjEmpty(-1));
-                break;
-            case Blocked:
-                forEachNeighbour(coord, nbr -> nbr.addNumAdjBlocked(-1));
-                break;
-            case Unsure:
-                break;
+        if (openCheckpoints > 0) {
+            if (trailSize == trail.length)
+                trail = Arrays.copyOf(trail, 2 * trail.length);
+            trail[trailSize++] = ((coord.f2 * xSize + coord.f1) << 2) | old.ordinal();
+        }
+        applySentiment(coord.f1, coord.f2, sent);
+    }
+
+    /**
+     * Starts recording sentiment changes, so that an assumption can be tested
+     * for contradictions on this grid and undone afterwards instead of being
+     * tested on a copy. Checkpoints nest, and every checkpoint must be rolled
+     * back, the innermost first.
+     * 
+     * @return The checkpoint to pass to {@link #rollback(int)}
+     */
+    public int checkpoint() {
+        openCheckpoints++;
+        return trailSize;
+    }
+
+    /**
+     * Undoes every sentiment change made since the checkpoint, newest first.
+     * Each undo reverses the neighbour counter updates of the change, so the
+     * cost is proportional to the number of changes and not to the grid size.
+     * 
+     * @param checkpoint Value returned by the matching {@link #checkpoint()}
+     */
+    public void rollback(int checkpoint) {
+        if (openCheckpoints == 0 || checkpoint > trailSize)
+            throw new IllegalStateException("checkpoint " + checkpoint + " is not open");
+        while (trailSize > checkpoint) {
+            int entry = trail[--trailSize];
+            int index = entry >>> 2;
+            applySentiment(index % xSize, index / xSize, SENTIMENTS[entry & 3]);
         }
+        openCheckpoints--;
+    }
+
+    // sets a cell's sentiment and updates the counters of its neighbours, without recording it
+    private void applySentiment(int x, int y, Sentiment sent) {
+        GridCell cell = setCell(x, y);
 
-        // set cell to new sentiment and update neighbours
+        // reset the current sentiment and set the new one in a single pass over the neighbours
+        Sentiment old = cell.getBlockSentiment();
+        int blockedDelta = (sent == Sentiment.Blocked ? 1 : 0) - (old == Sentiment.Blocked ? 1 : 0);
+        int emptyDelta = (sent == Sentiment.Free ? 1 : 0) - (old == Sentiment.Free ? 1 : 0);
         cell.setBlockSentiment(sent);
-        switch (sent) {
-            case Free:
-                forEachNeighbour(coord, nbr -> nbr.addNumAdjEmpty(1));
-                break;
-            case Blocked:
-                forEachNeighbour(coord, nbr -> nbr.addNumAdjBlocked(1));
-                break;
-            case Unsure:
-                break;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                if ((dx == 0 && dy == 0) || !inBounds(x + dx, y + dy))
+                    continue;
+                GridCell nbr = setCell(x + dx, y + dy);
+                if (blockedDelta != 0)
+                    nbr.addNumAdjBlocked(blockedDelta);
+                if (emptyDelta != 0)
+                    nbr.addNumAdjEmpty(emptyDelta);
+            }
+        }
+    }
+
+    /**
+     * Returns the open cells, i.e. the visited cells that still have neighbours
+     * of unknown status, which are the only cells inferences can be made from.
+     * The set is kept up to date as cells are visited and sentiments change, so
+     * this costs time in the number of open cells and not in the grid size.
+     * 
+     * @return A snapshot of the open cells, row by row
+     */
+    public List<GridCell> getFrontier() {
+        int[] open = Arrays.copyOf(frontier, frontierSize);
+        Arrays.sort(open);
+        List<GridCell> cells = new ArrayList<>(open.length);
+        for (int index : open) {
+            cells.add(grid[index]);
+        }
+        return cells;
+    }
+
+    /**
+     * Picks the open cell of the highest row with the lowest x, the one a
+     * top-down scan keeping the first open cell of the last row that has one
+     * would find. The choice depends only on the set of open cells, not on
+     * the order they were opened in.
+     * 
+     * @return The first open cell of the last open row (see
+     *         {@link #getFrontier()}), or null if there is none
+     */
+    public GridCell getFrontierCell() {
+        if (frontierSize == 0)
+            return null;
+        int best = frontier[0];
+        for (int i = 1; i < frontierSize; i++) {
+            int index = frontier[i];
+            int row = index / xSize;
+            int bestRow = best / xSize;
+            if (row > bestRow || (row == bestRow && index < best))
+                best = index;
+        }
+        return grid[best];
+    }
+
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    /**
+     * Adds a cell to or removes it from the open cells after its visited flag
+     * or neighbour counts changed. Cells of other grids, e.g. the originals of
+     * a shallow copy, are ignored.
+     */
+    void updateFrontier(GridCell cell) {
+        int index = cell.getY() * xSize + cell.getX();
+        if (frontierSlot == null || grid[index] != cell)
+            return; // still being constructed, or not this grid's cell
+        boolean open = cell.isVisited() && cell.getNumAdjHidden() > 0;
+        int slot = frontierSlot[index];
+        if (open && slot == -1) {
+            frontierSlot[index] = frontierSize;
+            frontier[frontierSize++] = index;
+        } else if (!open && slot != -1) { // move the last open cell into the freed slot
+            int last = frontier[--frontierSize];
+            frontier[slot] = last;
+            frontierSlot[last] = slot;
+            frontierSlot[index] = -1;
         }
     }
 
@@ -97,6 +97,7 @@ public class GridCell implements Cloneable {
     public void addNumAdjBlocked(int numAdjBlocked) {
         this.numAdjBlocked += numAdjBlocked;
         this.numAdjHidden -= numAdjBlocked;
+        owner.updateFrontier(this);
     }
 
     public int getNumAdjEmpty() {
@@ -106,6 +107,7 @@ public class GridCell implements Cloneable {
     public void addNumAdjEmpty(int numAdjEmpty) {
         this.numAdjEmpty += numAdjEmpty;
         this.numAdjHidden -= numAdjEmpty;
+        owner.updateFrontier(this);
     }
 
     public int getNumAdjHidden() {
@@ -126,6 +128,7 @@ public class GridCell implements Cloneable {
 
     public void setVisited(boolean visited) {
         isVisited = visited;
+        owner.updateFrontier(this);
     }
 
     protected Grid getOwner() {
@@ -0,0 +1,157 @@
+package project2.entity;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Rejection sampler for solvable mazes. Candidates are generated as raw bitsets
+ * and checked with a word-parallel flood fill, so no {@link Grid} or
+ * {@link GridCell} objects are built for mazes that get thrown away. Keeps
+ * count of the candidates it tried, to see how much work the rejection costs
+ * at a given density.
+ */
+public class MazeSampler {
+    private static final long MAX_CANDIDATES = 10_000_000; // per maze
+
+    private int xSize;
+    private int ySize;
+    private int probability;
+    private DoubleSupplier random;
+    private int numWords;
+    private long[] free; // reused for every candidate
+    private long[] reached;
+    private long[] notFirstColumn; // cells that may be entered from their left
+    private long[] notLastColumn; // cells that may be entered from their right
+    private long numberOfCandidates;
+    private long numberOfMazes;
+
+    /**
+     * @param xSize       Width of the mazes
+     * @param ySize       Height of the mazes
+     * @param probability Density of obstacles
+     */
+    public MazeSampler(int xSize, int ySize, int probability) {
+        this(xSize, ySize, probability, Math::random);
+    }
+
+    /**
+     * Draws the mazes from the given random stream. A maze is then the same as
+     * the first solvable one out of repeated
+     * {@code new Grid(xSize, ySize, probability, random)}.
+     *
+     * @param xSize       Width of the mazes
+     * @param ySize       Height of the mazes
+     * @param probability Density of obstacles
+     * @param random      Random stream the mazes are generated from
+     */
+    public MazeSampler(int xSize, int ySize, int probability, SplittableRandom random) {
+        this(xSize, ySize, probability, (DoubleSupplier) random::nextDouble);
+    }
+
+    private MazeSampler(int xSize, int ySize, int probability, DoubleSupplier random) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.probability = probability;
+        this.random = random;
+        this.numWords = (xSize * ySize + 63) >>> 6;
+        this.free = new long[numWords];
+        this.reached = new long[numWords];
+        this.notFirstColumn = new long[numWords];
+        this.notLastColumn = new long[numWords];
+        for (int i = 0; i < xSize * ySize; i++) {
+            if (i % xSize != 0)
+                notFirstColumn[i >>> 6] |= 1L << i;
+            if (i % xSize != xSize - 1)
+                notLastColumn[i >>> 6] |= 1L << i;
+        }
+    }
+
+    /**
+     * @return A new solvable maze, with the start at the top left and the goal
+     *         at the bottom right
+     */
+    public Grid next() {
+        for (long attempt = 0; attempt < MAX_CANDIDATES; attempt++) {
+            long[] blocked = Grid.generateBlocked(xSize, ySize, probability, random);
+            numberOfCandidates++;
+            if (isSolvable(blocked)) {
+                numberOfMazes++;
+                return new Grid(xSize, ySize, blocked);
+            }
+        }
+        throw new IllegalStateException("no solvable " + xSize + "x" + ySize + " maze at density " + probability
+                + " after " + MAX_CANDIDATES + " candidates");
+    }
+
+    private boolean isSolvable(long[] blocked) {
+        int end = xSize * ySize - 1;
+        for (int w = 0; w < numWords; w++) {
+            free[w] = ~blocked[w];
+        }
+        if ((end & 63) != 63)
+            free[numWords - 1] &= (1L << (end + 1)) - 1; // cells past the end are never free
+
+        Arrays.fill(reached, 0);
+        reached[0] = 1L; // the start
+        boolean changed = true;
+        boolean forward = true;
+        while (changed && !isSet(reached, end)) {
+            // sweep alternately up and down, so the fill spreads far in both directions per round
+            changed = false;
+            if (forward) {
+                for (int w = 0; w < numWords; w++)
+                    changed |= grow(w);
+            } else {
+                for (int w = numWords - 1; w >= 0; w--)
+                    changed |= grow(w);
+            }
+            forward = !forward;
+        }
+        return isSet(reached, end);
+    }
+
+    // adds the free neighbours of the reached cells to word w, returns whether it changed
+    private boolean grow(int w) {
+        int wordShift = xSize >>> 6;
+        int bitShift = xSize & 63;
+        long r = reached[w];
+        long grown = r;
+        grown |= ((r << 1) | (w > 0 ? reached[w - 1] >>> 63 : 0)) & notFirstColumn[w];
+        grown |= ((r >>> 1) | (w + 1 < numWords ? reached[w + 1] << 63 : 0)) & notLastColumn[w];
+        if (w - wordShift >= 0) { // from the row above
+            grown |= reached[w - wordShift] << bitShift;
+            if (bitShift != 0 && w - wordShift - 1 >= 0)
+                grown |= reached[w - wordShift - 1] >>> (64 - bitShift);
+        }
+        if (w + wordShift < numWords) { // from the row below
+            grown |= reached[w + wordShift] >>> bitShift;
+            if (bitShift != 0 && w + wordShift + 1 < numWords)
+                grown |= reached[w + wordShift + 1] << (64 - bitShift);
+        }
+        grown &= free[w];
+        if (grown == r)
+            return false;
+        reached[w] = grown;
+        return true;
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public long getNumberOfCandidates() {
+        return numberOfCandidates;
+    }
+
+    public long getNumberOfMazes() {
+        return numberOfMazes;
+    }
+
+    @Override
+    public String toString() {
+        double rejectionRate = numberOfCandidates == 0 ? 0 : 1 - (double) numberOfMazes / numberOfCandidates;
+        return String.format("Sampled %d solvable mazes from %d candidates (rejection rate %.1f%%)",
+                numberOfMazes, numberOfCandidates, 100 * rejectionRate);
+    }
+}
@@ -0,0 +1,249 @@
+package project2.utility;
+
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a list of experiments, e.g. every density from 0 to 40% for several
+ * agents, in one process. The episodes of all jobs share one worker pool, so
+ * small jobs don't leave threads idle. Every episode gets its own random
+ * stream, split off one seeded {@link SplittableRandom} in episode order, and
+ * results are consumed in episode order, so the output only depends on the seed
+ * and not on the number of threads. Results are never collected: every episode
+ * is written as a raw CSV row as soon as it is done and folded into a
+ * {@link RunningStatistics} and a {@link QuantileSketch} per metric, and a
+ * job's summary row is written once its last episode is in. Memory therefore
+ * stays flat however many episodes are run.
+ */
+public class SweepRunner {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final double QUANTILE_ERROR = 0.01;
+
+    /**
+     * One episode of a job, e.g. a robot run on a fresh maze.
+     */
+    @FunctionalInterface
+    public interface Episode {
+        /**
+         * @param xSize Width of the maze
+         * @param ySize Height of the maze
+         * @param density Density of obstacles in percent
+         * @param random Random stream for this episode only
+         * @return One value per metric, NaN where a metric has no value (e.g.
+         *         the path length of an unsolved maze)
+         */
+        double[] run(int xSize, int ySize, int density, SplittableRandom random);
+    }
+
+    /**
+     * A number of episodes with the same maze size, density and agent.
+     */
+    public static class Job {
+        private int xSize;
+        private int ySize;
+        private int density;
+        private String agent;
+        private int iterations;
+        private Episode episode;
+
+        public Job(int xSize, int ySize, int density, String agent, int iterations, Episode episode) {
+            if (iterations < 1) {
+                throw new IllegalArgumentException("a job needs at least one episode");
+            }
+            this.xSize = xSize;
+            this.ySize = ySize;
+            this.density = density;
+            this.agent = agent;
+            this.iterations = iterations;
+            this.episode = episode;
+        }
+    }
+
+    private String[] metrics;
+
+    /**
+     * @param metrics Names of the values every episode returns, in order
+     */
+    public SweepRunner(String... metrics) {
+        this.metrics = metrics.clone();
+    }
+
+    /**
+     * Makes one job per density in [from, to] for each agent.
+     *
+     * @param agents Names of the agents
+     * @param episodes Episode of each agent, in the same order
+     * @return The jobs, by density and then by agent
+     */
+    public static List<Job> densitySweep(int xSize, int ySize, int from, int to, int step, int iterations,
+                                         List<String> agents, List<Episode> episodes) {
+        List<Job> jobs = new ArrayList<>();
+        for (int density = from; density <= to; density += step) {
+            for (int i = 0; i < agents.size(); i++) {
+                jobs.add(new Job(xSize, ySize, density, agents.get(i), iterations, episodes.get(i)));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs the jobs, writing and flushing the CSV rows as they are ready.
+     *
+     * @param jobs Jobs to run, rows are written in this order
+     * @param seed Seed from which every episode's random stream is derived
+     * @param threads Number of worker threads
+     * @param raw Receives one row per episode
+     * @param summary Receives one row per job: per metric the count, mean,
+     *                standard deviation, minimum, quantiles, maximum and number
+     *                of missing values
+     */
+    public void run(List<Job> jobs, long seed, int threads, PrintWriter raw, PrintWriter summary) {
+        long[] firstEpisode = new long[jobs.size() + 1]; // episode numbers are counted across all jobs
+        for (int j = 0; j < jobs.size(); j++) {
+            firstEpisode[j + 1] = firstEpisode[j] + jobs.get(j).iterations;
+        }
+        if (firstEpisode[jobs.size()] > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many episodes: " + firstEpisode[jobs.size()]);
+        }
+
+        raw.println(rawHeader());
+        summary.println(summaryHeader());
+        Aggregate aggregate = new Aggregate();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            SplittableRandom root = new SplittableRandom(seed);
+            ArrayDeque<Future<double[]>> pending = new ArrayDeque<>(); // bounded, so finished results don't pile up
+            for (int i = 0; i < firstEpisode[jobs.size()]; i++) {
+                if (pending.size() >= 2 * threads) {
+                    aggregate.add(jobs, await(pending.poll()), raw, summary);
+                }
+                Job job = jobs.get(jobOf(firstEpisode, i));
+                SplittableRandom random = root.split();
+                pending.add(pool.submit(() -> runEpisode(job, random)));
+            }
+            while (!pending.isEmpty()) {
+                aggregate.add(jobs, await(pending.poll()), raw, summary);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        raw.flush();
+        summary.flush();
+    }
+
+    private double[] runEpisode(Job job, SplittableRandom random) {
+        double[] values = job.episode.run(job.xSize, job.ySize, job.density, random);
+        if (values.length != metrics.length) {
+            throw new IllegalStateException("episode returned " + values.length + " values for " + metrics.length
+                    + " metrics");
+        }
+        return values;
+    }
+
+    private static double[] await(Future<double[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int jobOf(long[] firstEpisode, int episode) {
+        int j = Arrays.binarySearch(firstEpisode, episode);
+        return j >= 0 ? j : -j - 2; // first episode of job j, or inside job -j - 2
+    }
+
+    // statistics of the job currently being consumed; only used on the calling thread
+    private class Aggregate {
+        int job;
+        int episode; // within the job
+        RunningStatistics[] statistics;
+        QuantileSketch[] sketches;
+
+        void add(List<Job> jobs, double[] values, PrintWriter raw, PrintWriter summary) {
+            if (episode == 0) {
+                statistics = new RunningStatistics[metrics.length];
+                sketches = new QuantileSketch[metrics.length];
+                for (int m = 0; m < metrics.length; m++) {
+                    statistics[m] = new RunningStatistics();
+                    sketches[m] = new QuantileSketch(QUANTILE_ERROR);
+                }
+            }
+
+            Job current = jobs.get(job);
+            StringBuilder sb = new StringBuilder();
+            sb.append(current.xSize).append(',').append(current.ySize).append(',').append(current.density)
+                    .append(',').append(current.agent).append(',').append(episode);
+            for (int m = 0; m < metrics.length; m++) {
+                sb.append(',').append(values[m]);
+                statistics[m].add(values[m]);
+                sketches[m].add(values[m]);
+            }
+            raw.println(sb);
+
+            if (++episode == current.iterations) {
+                writeSummary(current, summary);
+                raw.flush();
+                job++;
+                episode = 0;
+            }
+        }
+
+        void writeSummary(Job job, PrintWriter summary) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(job.xSize).append(',').append(job.ySize).append(',').append(job.density)
+                    .append(',').append(job.agent).append(',').append(job.iterations);
+            for (int m = 0; m < metrics.length; m++) {
+                RunningStatistics s = statistics[m];
+                QuantileSketch q = sketches[m];
+                sb.append(',').append(s.getCount())
+                        .append(',').append(s.getMean())
+                        .append(',').append(s.getStandardDeviation())
+                        .append(',').append(s.getMin());
+                for (double quantile : QUANTILES) { // bucket midpoints can lie outside the values seen
+                    sb.append(',').append(Math.max(s.getMin(), Math.min(s.getMax(), q.getQuantile(quantile))));
+                }
+                sb.append(',').append(s.getMax())
+                        .append(',').append(s.getNumberOfNaNs());
+            }
+            summary.println(sb);
+            summary.flush();
+        }
+    }
+
+    private String rawHeader() {
+        StringBuilder sb = new StringBuilder("x_size,y_size,density,agent,episode");
+        for (String metric : metrics) {
+            sb.append(',').append(metric);
+        }
+        return sb.toString();
+    }
+
+    private String summaryHeader() {
+        StringBuilder sb = new StringBuilder("x_size,y_size,density,agent,episodes");
+        for (String metric : metrics) {
+            sb.append(',').append(metric).append("_count")
+                    .append(',').append(metric).append("_mean")
+                    .append(',').append(metric).append("_sd")
+                    .append(',').append(metric).append("_min");
+            for (double quantile : QUANTILES) {
+                sb.append(',').append(metric).append("_p").append(Math.round(quantile * 100));
+            }
+            sb.append(',').append(metric).append("_max")
+                    .append(',').append(metric).append("_nan");
+        }
+        return sb.toString();
+    }
+}
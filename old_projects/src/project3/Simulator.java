@@ -9,17 +9,33 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.function.Supplier;
 // import java.util.function.BiFunction;
 // import java.util.function.Predicate;
 
 public class Simulator {
+    private static final int SWEEP_MIN_DENSITY = 0;
+    private static final int SWEEP_MAX_DENSITY = 40;
+
     /**
      * Main Execution Method
      *
      * @param args Input arguments X - Grid X size, Y - Entity.Grid Y size,
-     *             Iterations - Number of Iterations (defaults to 100)
+     *             Iterations - Number of Iterations (defaults to 100). With
+     *             "--sweep" first, runs Iterations episodes at every density
+     *             from 0 to 40% instead, followed by optional Seed and Threads,
+     *             see {@link #sweep(int, int, int, long, int)}.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws FileNotFoundException {
+        if (args.length > 0 && args[0].equals("--sweep")) {
+            int x = Integer.parseInt(args[1]);
+            int y = Integer.parseInt(args[2]);
+            int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+            long seed = args.length > 4 ? Long.parseLong(args[4]) : 520;
+            int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+            sweep(x, y, iterations, seed, threads);
+            return;
+        }
         int xDim = Integer.parseInt(args[0]);
         int yDim = Integer.parseInt(args[1]);
         int iterations = Integer.parseInt(args[2]);
@@ -44,6 +60,45 @@ public class Simulator {
         printResultsToCsv("p3-realagent.csv", results);
     }
 
+    /**
+     * Runs agents 6, 7 and 8 at every density from 0 to 40% in 1% steps, all
+     * in this process on one worker pool. Every episode goes to
+     * p3-sweep-raw.csv and the statistics of every density and agent to
+     * p3-sweep-summary.csv, both written while the sweep runs. Every episode
+     * draws its maze and the outcomes of its examinations from its own random
+     * stream, so apart from the runtimes the output only depends on the seed.
+     *
+     * @param iterations Episodes per density and agent
+     * @param seed       Seed the mazes and examinations are generated from
+     * @param threads    Number of worker threads
+     */
+    public static void sweep(int xDim, int yDim, int iterations, long seed, int threads)
+            throws FileNotFoundException {
+        List<String> agents = List.of("agent6", "agent7", "agent8");
+        List<Supplier<DecisionAgent>> factories = List.of(Agent6::new, Agent7::new, Agent8::new);
+        List<SweepRunner.Episode> episodes = new ArrayList<>();
+        for (Supplier<DecisionAgent> factory : factories) {
+            episodes.add((x, y, density, random) -> runEpisode(x, y, density, random, factory.get()));
+        }
+        SweepRunner runner = new SweepRunner("steps_taken", "examinations", "cells_processed", "bumps", "plans",
+                "runtime");
+        try (PrintWriter raw = new PrintWriter(new File("p3-sweep-raw.csv"));
+                PrintWriter summary = new PrintWriter(new File("p3-sweep-summary.csv"))) {
+            runner.run(SweepRunner.densitySweep(xDim, yDim, SWEEP_MIN_DENSITY, SWEEP_MAX_DENSITY, 1, iterations,
+                    agents, episodes), seed, threads, raw, summary);
+        }
+    }
+
+    // agents and searches keep state between calls, so every episode gets its own
+    private static double[] runEpisode(int xDim, int yDim, int prob, SplittableRandom random, DecisionAgent agent) {
+        SearchAlgo algo = new AStarSearch(Heuristics::manhattanDistance);
+        Grid world = getSolvableMaze(xDim, yDim, algo, prob, random);
+        Robot rob = new Robot(new Point(0, 0), agent, new Grid(world, true), algo, false, 0, random);
+        GridWorldInfo info = rob.run();
+        return new double[] { info.numStepsTaken, info.numExaminations, info.numberOfCellsProcessed, info.numBumps,
+                info.numPlans, info.runtime };
+    }
+
     public static void printMaze(Grid world) {
         for(int y = 0; y < world.getYSize(); y++) {
             for(int x = 0; x < world.getXSize(); x++) {
@@ -89,7 +144,27 @@ public class Simulator {
         Grid grid;
 
         do {
-            grid = new Grid(xDim, yDim);
+            grid = new Grid(xDim, yDim, prob);
+            completeResult = algo.search(start, grid.getGoal(), grid, cell -> cell.isBlocked());
+        } while (completeResult.f1 == null);
+
+        return grid;
+    }
+
+    /**
+     * Same as {@link #getSolvableMaze(int, int, SearchAlgo, int)}, but the mazes
+     * are drawn from the given random stream.
+     *
+     * @param random Random stream the mazes are generated from
+     * @return returns a solvable maze
+     */
+    public static Grid getSolvableMaze(int xDim, int yDim, SearchAlgo algo, int prob, SplittableRandom random) {
+        Point start = new Point(0, 0);
+        Tuple<List<Point>, Integer> completeResult;
+        Grid grid;
+
+        do {
+            grid = new Grid(xDim, yDim, prob, random);
             completeResult = algo.search(start, grid.getGoal(), grid, cell -> cell.isBlocked());
         } while (completeResult.f1 == null);
 
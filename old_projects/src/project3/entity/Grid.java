@@ -2,7 +2,9 @@ package project3.entity;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SplittableRandom;
 import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
 
 import project3.utility.Point;
 import project3.utility.Terrain;
@@ -16,17 +18,47 @@ public class Grid {
     private Point goal; // cache the location of the goal
     private int xSize;
     private int ySize;
+    private int probability; // density of obstacles, only used while generating
 
     /**
-     * Constructs the grid with the specified parameters.
+     * Constructs the grid with the specified parameters, at the default density of 30%.
      * 
      * @param xSize Width of grid
      * @param ySize Height of grid
      */
     public Grid(int xSize, int ySize) {
+        this(xSize, ySize, 30);
+    }
+
+    /**
+     * Constructs the grid with the specified parameters.
+     * 
+     * @param xSize       Width of grid
+     * @param ySize       Height of grid
+     * @param probability Density of obstacles
+     */
+    public Grid(int xSize, int ySize, int probability) {
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.probability = probability;
+        this.grid = generateGrid(xSize, ySize, Math::random);
+    }
+
+    /**
+     * Generates a grid from the given random stream instead of the shared
+     * {@link Math#random()} generator, so that grids are reproducible.
+     * 
+     * @param xSize       Width of grid
+     * @param ySize       Height of grid
+     * @param probability Density of obstacles
+     * @param random      Random stream used to place the obstacles, terrain and
+     *                    goal
+     */
+    public Grid(int xSize, int ySize, int probability, SplittableRandom random) {
         this.xSize = xSize;
         this.ySize = ySize;
-        this.grid = generateGrid(xSize, ySize);
+        this.probability = probability;
+        this.grid = generateGrid(xSize, ySize, random::nextDouble);
     }
 
     /**
@@ -40,6 +72,7 @@ public class Grid {
         this.ySize = other.getYSize();
         this.grid = other.getGrid().clone();
         this.goal = other.getGoal();
+        this.probability = other.probability;
 
         if (deep) {
             for (int i = 0; i < grid.length; i++) {
@@ -48,19 +81,19 @@ public class Grid {
         }
     }
 
-    private boolean generateIsBlocked() {
-        return Math.random() * 100 < 30;
+    private boolean generateIsBlocked(DoubleSupplier random) {
+        return random.getAsDouble() * 100 < probability;
     }
 
-    private GridCell[] setGoal(GridCell[] grid, ArrayList<Integer> freeCellIndexes) {
-        int location = (int) (Math.random() * freeCellIndexes.size());
+    private GridCell[] setGoal(GridCell[] grid, ArrayList<Integer> freeCellIndexes, DoubleSupplier random) {
+        int location = (int) (random.getAsDouble() * freeCellIndexes.size());
         int index = freeCellIndexes.get(location);
         grid[index].setGoal(true);
         this.goal = grid[index].getLocation();
         return grid;
     }
 
-    private GridCell[] generateGrid(int dimX, int dimY) {
+    private GridCell[] generateGrid(int dimX, int dimY, DoubleSupplier random) {
         int size = dimX * dimY;
         GridCell[] grid = new GridCell[size];
         ArrayList<Integer> freeListIndexes = new ArrayList<>();
@@ -69,10 +102,10 @@ public class Grid {
                 int index = y * dimX + x;
 
                 // determine if cell is blocked
-                boolean isBlocked = (index == 0) ? false : generateIsBlocked();
+                boolean isBlocked = (index == 0) ? false : generateIsBlocked(random);
                 Terrain terrain = Terrain.Blocked;
                 if (!isBlocked) {
-                    double terrainType = Math.random() * 90;
+                    double terrainType = random.getAsDouble() * 90;
                     if (terrainType <= 90) {
                         terrain = Terrain.Forest;
                     }
@@ -88,7 +121,7 @@ public class Grid {
                 grid[index] = gc;
             }
         }
-        return setGoal(grid, freeListIndexes);
+        return setGoal(grid, freeListIndexes, random);
     }
 
     public Point getGoal() {
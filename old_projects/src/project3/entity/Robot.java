@@ -6,6 +6,8 @@ import project3.utility.Point;
 import project3.utility.Tuple;
 
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
 
 /**
  * Represents the actual agent that will move through the gridworld.
@@ -18,6 +20,7 @@ public class Robot {
     private SearchAlgo searchAlgo;
     private boolean verbose;
     private double keep; // what percentage of the samples to keep
+    private DoubleSupplier random; // decides examinations and which samples are kept
     private static final double NANO_SECONDS = 1000000000d;
 
     // track some runtime statistics
@@ -37,12 +40,31 @@ public class Robot {
      * @param searchAlgo The algorithm used to path-plan
      */
     public Robot(Point start, DecisionAgent agent, Grid grid, SearchAlgo searchAlgo, boolean verbose, double keep) {
+        this(start, agent, grid, searchAlgo, verbose, keep, Math::random);
+    }
+
+    /**
+     * Same as {@link #Robot(Point, DecisionAgent, Grid, SearchAlgo, boolean, double)},
+     * but examinations succeed or fail, and samples are kept, according to the
+     * given random stream instead of the shared {@link Math#random()} generator,
+     * so that runs are reproducible.
+     * 
+     * @param random Random stream for this robot only
+     */
+    public Robot(Point start, DecisionAgent agent, Grid grid, SearchAlgo searchAlgo, boolean verbose, double keep,
+            SplittableRandom random) {
+        this(start, agent, grid, searchAlgo, verbose, keep, (DoubleSupplier) random::nextDouble);
+    }
+
+    private Robot(Point start, DecisionAgent agent, Grid grid, SearchAlgo searchAlgo, boolean verbose, double keep,
+            DoubleSupplier random) {
         this.current = start;
         this.agent = agent;
         this.kb = grid;
         this.searchAlgo = searchAlgo;
         this.verbose = verbose;
         this.keep = keep;
+        this.random = random;
         
         // set default values
         this.numStepsTaken = 0;
@@ -79,7 +101,7 @@ public class Robot {
      * @return Whether the examination revealed the target or not.
      */
     public boolean examineTerrain(GridCell cell) {
-        double val = Math.random();
+        double val = random.getAsDouble();
         if (cell.isGoal() && val >= cell.getTerrain().getFalseRate()) {
             return true;
         }
@@ -97,7 +119,7 @@ public class Robot {
     private boolean runPath(List<Point> path) {
         for (Point position : path) {
             // output data
-            if(verbose && Math.random()*100 < keep) {
+            if(verbose && random.getAsDouble()*100 < keep) {
                 System.out.print(getGridState());
                 System.err.print(getDirectionCode(position));
             }
@@ -119,7 +141,7 @@ public class Robot {
             // decide whether to examine the current cell
             if (current.equals(destination) || agent.doExamine(kb, current, destination)) {
                 // output data
-                if(verbose && Math.random()*100 < keep) {
+                if(verbose && random.getAsDouble()*100 < keep) {
                     System.out.print(getGridState());
                     System.err.print(4);
                     System.err.print(' ');
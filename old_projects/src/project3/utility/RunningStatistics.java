@@ -0,0 +1,72 @@
+package project3.utility;
+
+/**
+ * Count, mean, variance, minimum and maximum of a stream of values in constant
+ * memory, using Welford's update so the variance stays accurate for long
+ * streams of similar values. NaN values (e.g. the length of an unsolved
+ * episode) are only counted, see {@link #getNumberOfNaNs()}.
+ */
+public class RunningStatistics {
+    private long count;
+    private long numberOfNaNs;
+    private double mean;
+    private double m2; // sum of squared differences from the mean
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            numberOfNaNs++;
+            return;
+        }
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * @return Number of values added, not counting NaNs
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public long getNumberOfNaNs() {
+        return numberOfNaNs;
+    }
+
+    /**
+     * @return The mean, NaN if no values were added
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return The sample variance, NaN with fewer than two values
+     */
+    public double getVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return The smallest value, NaN if no values were added
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return The largest value, NaN if no values were added
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+}